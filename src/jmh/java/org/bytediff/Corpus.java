@@ -0,0 +1,116 @@
+package org.bytediff;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic inputs of benchmarks, the same for the same
+ * parameters on every run and release.
+ *
+ * <p>Source is text like, words of 1 to 12 lowercase letters separated by
+ * spaces with a line break every few words. Target is the source with edits
+ * spread at given density, edits per element: each edit replaces, inserts or
+ * deletes a run of 1 to 8 chars. Density 0 gives identical inputs, density 1
+ * an unrelated target generated from another seed.
+ */
+public final class Corpus {
+
+  private static final long SOURCE_SEED = 0x5EEDL;
+
+  private static final long EDIT_SEED = 0xED175L;
+
+  private final char[] source;
+
+  private final char[] target;
+
+  private Corpus(char[] source, char[] target) {
+    this.source = source;
+    this.target = target;
+  }
+
+  /**
+   * @param size    number of chars of source
+   * @param density edits per char, from 0 to 1
+   * @return corpus
+   */
+  public static Corpus of(int size, double density) {
+    char[] source = text(size, SOURCE_SEED);
+    if (density >= 1) {
+      return new Corpus(source, text(size, EDIT_SEED));
+    }
+    return new Corpus(source, edit(source, density));
+  }
+
+  public char[] source() {
+    return source.clone();
+  }
+
+  public char[] target() {
+    return target.clone();
+  }
+
+  public byte[] sourceBytes() {
+    return new String(source).getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  public byte[] targetBytes() {
+    return new String(target).getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  private static char[] text(int size, long seed) {
+    SplittableRandom random = new SplittableRandom(seed);
+    char[] text = new char[size];
+    int word = 0;
+    for (int i = 0; i < size; i++) {
+      if (word == 0) {
+        word = 1 + random.nextInt(12);
+        text[i] = random.nextInt(8) == 0 ? '\n' : ' ';
+      } else {
+        text[i] = (char) ('a' + random.nextInt(26));
+        word--;
+      }
+    }
+    return text;
+  }
+
+  private static char[] edit(char[] source, double density) {
+    long edits = Math.round(source.length * density);
+    if (edits == 0) {
+      return source.clone();
+    }
+    SplittableRandom random = new SplittableRandom(EDIT_SEED);
+    int gap = (int) Math.max(1, source.length / edits);
+    StringBuilder target = new StringBuilder(source.length + 16);
+    int copied = 0;
+    for (int position = random.nextInt(gap); position < source.length;
+        position += 1 + random.nextInt(2 * gap)) {
+      target.append(source, copied, position - copied);
+      copied = position;
+      int length = 1 + random.nextInt(8);
+      switch (random.nextInt(3)) {
+        case 0:
+          copied = Math.min(source.length, position + length);
+          append(target, random, length);
+          break;
+        case 1:
+          append(target, random, length);
+          break;
+        default:
+          copied = Math.min(source.length, position + length);
+          break;
+      }
+      position = copied;
+    }
+    target.append(source, copied, source.length - copied);
+    char[] result = new char[target.length()];
+    target.getChars(0, result.length, result, 0);
+    return result;
+  }
+
+  private static void append(StringBuilder target, SplittableRandom random,
+      int length) {
+    for (int i = 0; i < length; i++) {
+      target.append((char) ('A' + random.nextInt(26)));
+    }
+  }
+}
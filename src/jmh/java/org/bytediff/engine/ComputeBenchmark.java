@@ -0,0 +1,74 @@
+package org.bytediff.engine;
+
+import java.util.concurrent.TimeUnit;
+import org.bytediff.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole comparison of synthetic corpus, from 1 KB to 64 MB and from
+ * identical to unrelated inputs, of bytes and of chars.
+ *
+ * <p>Search is bounded by {@code maxCost}, like large inputs are compared in
+ * practice, otherwise dense edits of the big sizes take hours. Exact search
+ * is measured with {@code -p maxCost=2147483647} on small sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ComputeBenchmark {
+
+  @Param({"1024", "65536", "1048576", "67108864"})
+  private int size;
+
+  @Param({"0", "0.0001", "0.01", "1"})
+  private double density;
+
+  @Param({"bytes", "chars"})
+  private String kind;
+
+  @Param({"1024"})
+  private int maxCost;
+
+  private char[] sourceChars;
+
+  private char[] targetChars;
+
+  private byte[] sourceBytes;
+
+  private byte[] targetBytes;
+
+  private DiffOptions options;
+
+  @Setup
+  public void setUp() {
+    Corpus corpus = Corpus.of(size, density);
+    if ("bytes".equals(kind)) {
+      sourceBytes = corpus.sourceBytes();
+      targetBytes = corpus.targetBytes();
+    } else {
+      sourceChars = corpus.source();
+      targetChars = corpus.target();
+    }
+    options = DiffOptions.defaults().withMaxCost(maxCost);
+  }
+
+  @Benchmark
+  public DiffInfo compute() {
+    return sourceBytes != null
+        ? Diff.compute(sourceBytes, targetBytes, options)
+        : Diff.compute(sourceChars, targetChars, options);
+  }
+}
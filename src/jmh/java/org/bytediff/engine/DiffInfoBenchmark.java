@@ -0,0 +1,75 @@
+package org.bytediff.engine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bytediff.Corpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading ranges of a computed diff: flyweight cursor, compatibility list
+ * view and string accessors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiffInfoBenchmark {
+
+  @Param({"65536", "1048576"})
+  private int size;
+
+  @Param({"0.001", "0.01"})
+  private double density;
+
+  private DiffInfo info;
+
+  @Setup
+  public void setUp() {
+    Corpus corpus = Corpus.of(size, density);
+    info = Diff.compute(corpus.source(), corpus.target(),
+        DiffOptions.defaults().withMaxCost(1024));
+  }
+
+  @Benchmark
+  public long cursor() {
+    long sum = 0;
+    DiffInfo.Cursor range = info.cursor();
+    while (range.next()) {
+      sum += range.getSourceEnd() - range.getSourceStart()
+          + range.getTargetEnd() - range.getTargetStart();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public long listView() {
+    long sum = 0;
+    for (DiffInfo.Diff range : info.getDiff()) {
+      sum += range.getSourceEnd() - range.getSourceStart()
+          + range.getTargetEnd() - range.getTargetStart();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public List<String> inserts() {
+    return info.getInserts();
+  }
+
+  @Benchmark
+  public int[] insertIndexes() {
+    return info.getInsertIndexes();
+  }
+}
@@ -0,0 +1,90 @@
+package org.bytediff.engine;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Snake heavy comparison: long random inputs with a handful of evenly spread
+ * replacements, so that nearly all the work is extending snakes. {@code
+ * scalarSnakes} walks them char by char like the engine used to, {@code
+ * vectorSnakes} like it does now.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnakeBenchmark {
+
+  /**
+   * Input size in bytes, 1 MB to 100 MB.
+   */
+  @Param({"1048576", "16777216", "104857600"})
+  private int size;
+
+  @Param({"16"})
+  private int edits;
+
+  private char[] source;
+
+  private char[] target;
+
+  private Sequence sourceSequence;
+
+  private Sequence targetSequence;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    source = new char[size / 2];
+    for (int i = 0; i < source.length; i++) {
+      source[i] = (char) ('a' + random.nextInt(26));
+    }
+    target = source.clone();
+    for (int i = 1; i <= edits; i++) {
+      target[(int) ((long) target.length * i / (edits + 1))] = '#';
+    }
+    sourceSequence = new CharArraySequence(source);
+    targetSequence = new CharArraySequence(target);
+  }
+
+  @Benchmark
+  public int scalarSnakes() {
+    int x = 0;
+    while (x < source.length) {
+      while (x < source.length && source[x] == target[x]) {
+        x++;
+      }
+      x++;
+    }
+    return x;
+  }
+
+  @Benchmark
+  public int vectorSnakes() {
+    int x = 0;
+    while (x < source.length) {
+      x += sourceSequence.commonPrefix(x, source.length,
+          targetSequence, x, target.length);
+      x++;
+    }
+    return x;
+  }
+
+  @Benchmark
+  public DiffInfo compute() {
+    return Diff.compute(source, target);
+  }
+}
@@ -0,0 +1,92 @@
+package org.bytediff.print;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.bytediff.Corpus;
+import org.bytediff.engine.Diff;
+import org.bytediff.engine.DiffInfo;
+import org.bytediff.engine.DiffOptions;
+import org.bytediff.print.enc.IdEncoder;
+import org.bytediff.print.enc.RawValueEncoder;
+import org.bytediff.print.fmt.AnsiColorFormatter;
+import org.bytediff.print.fmt.SymbolFormatter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of a computed diff, to a string and streamed to a writer, over
+ * modes, formatters and encoders. Encoder "id" leaves chars as they are,
+ * numbers stand for radix of {@code RawValueEncoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PrinterBenchmark {
+
+  @Param({"1024", "65536", "1048576"})
+  private int size;
+
+  @Param({"0.001", "0.01"})
+  private double density;
+
+  @Param({"bytes", "chars"})
+  private String kind;
+
+  @Param({"compact", "verbose", "hexdump"})
+  private String mode;
+
+  @Param({"symbol", "ansi"})
+  private String formatter;
+
+  @Param({"id", "2", "10", "16"})
+  private String encoder;
+
+  private Printer printer;
+
+  private Writer sink;
+
+  @Setup
+  public void setUp() {
+    Corpus corpus = Corpus.of(size, density);
+    DiffOptions options = DiffOptions.defaults().withMaxCost(1024);
+    DiffInfo info = "bytes".equals(kind)
+        ? Diff.compute(corpus.sourceBytes(), corpus.targetBytes(), options)
+        : Diff.compute(corpus.source(), corpus.target(), options);
+
+    printer = Printer.from(info)
+        .withFormatter("ansi".equals(formatter) ? new AnsiColorFormatter()
+            : new SymbolFormatter())
+        .withEncoding("id".equals(encoder) ? new IdEncoder()
+            : new RawValueEncoder(Integer.parseInt(encoder)));
+    if ("verbose".equals(mode)) {
+      printer.verbose();
+    } else if ("hexdump".equals(mode)) {
+      printer.hexDump();
+    }
+    sink = Writer.nullWriter();
+  }
+
+  @Benchmark
+  public String print() {
+    return printer.print();
+  }
+
+  @Benchmark
+  public Writer stream() throws IOException {
+    printer.print(sink);
+    return sink;
+  }
+}
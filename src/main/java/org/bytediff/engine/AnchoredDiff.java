@@ -0,0 +1,145 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Base of algorithms which split inputs at matched runs, called anchors, and
+ * compare what is left between them the same way. Ranges are kept on an
+ * explicit stack, so deep splitting doesn't overflow the call stack.
+ */
+abstract class AnchoredDiff extends DiffAlgorithm {
+
+  /* stack item standing for a run of matches instead of a range */
+  private static final int MATCH_ITEM = -1;
+
+  /**
+   * Finds anchors of {@code source[sourceFrom, sourceTo)} and {@code
+   * target[targetFrom, targetTo)}. Ranges have no common prefix or suffix and
+   * neither of them is empty.
+   *
+   * @param anchors receiver of anchors, in order of both sequences
+   * @return false if ranges should be compared by Meyer's algorithm instead,
+   * true with no anchors if ranges have nothing in common
+   */
+  abstract boolean findAnchors(@Nonnull Sequence source, int sourceFrom,
+      int sourceTo, @Nonnull Sequence target, int targetFrom, int targetTo,
+      @Nonnull Anchors anchors);
+
+  @Override
+  EditScript computeEditScript(@Nonnull final Sequence source,
+      final int sourceFrom, final int sourceTo, @Nonnull final Sequence target,
+      final int targetFrom, final int targetTo, @Nonnull final Budget budget) {
+    final EditScript script = new EditScript();
+    final Anchors anchors = new Anchors();
+    int[] stack = new int[64];
+    int size = 0;
+    stack[size++] = sourceFrom;
+    stack[size++] = sourceTo;
+    stack[size++] = targetFrom;
+    stack[size++] = targetTo;
+
+    while (size > 0) {
+      size -= 4;
+      int left = stack[size];
+      int right = stack[size + 1];
+      int top = stack[size + 2];
+      int bottom = stack[size + 3];
+      if (left == MATCH_ITEM) {
+        script.append(EditScript.MATCH, right);
+        continue;
+      }
+
+      final int prefix = source.commonPrefix(left, right, target, top, bottom);
+      script.append(EditScript.MATCH, prefix);
+      left += prefix;
+      top += prefix;
+      final int suffix = source.commonSuffix(left, right, target, top, bottom);
+      right -= suffix;
+      bottom -= suffix;
+
+      anchors.size = 0;
+      if (left != right && top != bottom && budget.isExpired()) {
+        budget.approximate();
+        script.append(EditScript.DELETE, right - left);
+        script.append(EditScript.INSERT, bottom - top);
+        script.append(EditScript.MATCH, suffix);
+        continue;
+      }
+      if (left == right || top == bottom
+          || findAnchors(source, left, right, target, top, bottom, anchors)
+          && anchors.size == 0) {
+        script.append(EditScript.DELETE, right - left);
+        script.append(EditScript.INSERT, bottom - top);
+        script.append(EditScript.MATCH, suffix);
+        continue;
+      }
+      if (anchors.size == 0) {
+        script.append(Diff.computeEditScript(source, left, right,
+            target, top, bottom, false, budget));
+        script.append(EditScript.MATCH, suffix);
+        continue;
+      }
+
+      if (stack.length < size + 8 * anchors.size + 8) {
+        stack = Arrays.copyOf(stack,
+            Math.max(2 * stack.length, size + 8 * anchors.size + 8));
+      }
+      size = push(stack, size, MATCH_ITEM, suffix, 0, 0);
+      int sourceEnd = right;
+      int targetEnd = bottom;
+      for (int i = anchors.size - 1; i >= 0; i--) {
+        final int s = anchors.sourceStart(i);
+        final int t = anchors.targetStart(i);
+        final int length = anchors.length(i);
+        size = push(stack, size, s + length, sourceEnd, t + length, targetEnd);
+        size = push(stack, size, MATCH_ITEM, length, 0, 0);
+        sourceEnd = s;
+        targetEnd = t;
+      }
+      size = push(stack, size, left, sourceEnd, top, targetEnd);
+    }
+    return script;
+  }
+
+  private static int push(@Nonnull final int[] stack, final int size,
+      final int a, final int b, final int c, final int d) {
+    stack[size] = a;
+    stack[size + 1] = b;
+    stack[size + 2] = c;
+    stack[size + 3] = d;
+    return size + 4;
+  }
+
+  /**
+   * Matched runs given as source start, target start and length.
+   */
+  static final class Anchors {
+
+    private int[] values = new int[48];
+
+    private int size;
+
+    void add(final int sourceStart, final int targetStart, final int length) {
+      if (3 * size + 3 > values.length) {
+        values = Arrays.copyOf(values, 2 * values.length);
+      }
+      values[3 * size] = sourceStart;
+      values[3 * size + 1] = targetStart;
+      values[3 * size + 2] = length;
+      size++;
+    }
+
+    int sourceStart(final int anchor) {
+      return values[3 * anchor];
+    }
+
+    int targetStart(final int anchor) {
+      return values[3 * anchor + 1];
+    }
+
+    int length(final int anchor) {
+      return values[3 * anchor + 2];
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Length of the longest common subsequence by bit-parallel algorithm of
+ * Allison, Dix and Hyyrö. Row of the LCS table is kept as a bit vector, 64
+ * columns per long, and each element of the other sequence updates it with a
+ * few word operations, so cost is O(N * M / 64) without building any ranges.
+ *
+ * <p>Elements are told apart by {@code Sequence.hashAt}, which is exact for
+ * sequences of chars, bytes and ints.
+ */
+final class BitParallelLcs {
+
+  /**
+   * Number of rows between checks whether required length is still
+   * reachable.
+   */
+  private static final int CHECK_INTERVAL = 64;
+
+  private BitParallelLcs() {
+  }
+
+  /**
+   * Computes LCS length of two whole sequences, giving up as soon as it is
+   * clear it will be shorter than {@code minLength}.
+   *
+   * @return LCS length or -1 if it is shorter than {@code minLength}
+   */
+  static int lcs(@Nonnull final Sequence source, @Nonnull final Sequence target,
+      final int minLength) {
+    final int prefix = source.commonPrefix(0, source.length(),
+        target, 0, target.length());
+    final int suffix = source.commonSuffix(prefix, source.length(),
+        target, prefix, target.length());
+    final int sourceTo = source.length() - suffix;
+    final int targetTo = target.length() - suffix;
+
+    final int core = sourceTo - prefix <= targetTo - prefix
+        ? lcs(source, prefix, sourceTo, target, prefix, targetTo,
+        minLength - prefix - suffix)
+        : lcs(target, prefix, targetTo, source, prefix, sourceTo,
+            minLength - prefix - suffix);
+    return core < 0 ? -1 : prefix + suffix + core;
+  }
+
+  /**
+   * Bits stand for elements of the pattern, which should be the shorter range,
+   * rows for elements of text.
+   */
+  private static int lcs(@Nonnull final Sequence pattern, final int patternFrom,
+      final int patternTo, @Nonnull final Sequence text, final int textFrom,
+      final int textTo, final int minLength) {
+    final int n = patternTo - patternFrom;
+    final int words = (n + 63) >>> 6;
+    if (n == 0) {
+      return minLength > 0 ? -1 : 0;
+    }
+    final Masks masks = new Masks(pattern, patternFrom, patternTo, words);
+
+    final long[] v = new long[words];
+    Arrays.fill(v, -1L);
+
+    for (int row = textFrom; row < textTo; row++) {
+      final long[] match = masks.get(text.hashAt(row));
+      if (match != null) {
+        long carry = 0;
+        for (int w = 0; w < words; w++) {
+          final long old = v[w];
+          final long u = old & match[w];
+          final long sum = old + u + carry;
+          carry = ((old & u) | ((old | u) & ~sum)) >>> 63;
+          v[w] = sum | (old & ~u);
+        }
+      }
+      if ((row - textFrom) % CHECK_INTERVAL == CHECK_INTERVAL - 1
+          && zeros(v) + textTo - row - 1 < minLength) {
+        return -1;
+      }
+    }
+    final int length = zeros(v);
+    return length < minLength ? -1 : length;
+  }
+
+  private static int zeros(@Nonnull final long[] v) {
+    int zeros = 0;
+    for (long word : v) {
+      zeros += Long.bitCount(~word);
+    }
+    return zeros;
+  }
+
+  /**
+   * Positions of each distinct pattern element as bit vectors, in open
+   * addressing table keyed by element hash.
+   */
+  private static final class Masks {
+
+    private final int[] keys;
+
+    private final long[][] values;
+
+    Masks(@Nonnull final Sequence pattern, final int from, final int to,
+        final int words) {
+      int capacity = 16;
+      while (capacity < 2 * Math.min(to - from, 1 << 17)) {
+        capacity <<= 1;
+      }
+      int[] keys = new int[capacity];
+      long[][] values = new long[capacity][];
+      int size = 0;
+
+      for (int i = from; i < to; i++) {
+        final int key = pattern.hashAt(i);
+        int slot = slot(key, keys.length - 1);
+        while (values[slot] != null && keys[slot] != key) {
+          slot = (slot + 1) & (keys.length - 1);
+        }
+        if (values[slot] == null) {
+          if (2 * (size + 1) > keys.length) {
+            final int[] oldKeys = keys;
+            final long[][] oldValues = values;
+            keys = new int[2 * oldKeys.length];
+            values = new long[2 * oldKeys.length][];
+            for (int j = 0; j < oldKeys.length; j++) {
+              if (oldValues[j] != null) {
+                int s = slot(oldKeys[j], keys.length - 1);
+                while (values[s] != null) {
+                  s = (s + 1) & (keys.length - 1);
+                }
+                keys[s] = oldKeys[j];
+                values[s] = oldValues[j];
+              }
+            }
+            slot = slot(key, keys.length - 1);
+            while (values[slot] != null) {
+              slot = (slot + 1) & (keys.length - 1);
+            }
+          }
+          keys[slot] = key;
+          values[slot] = new long[words];
+          size++;
+        }
+        values[slot][(i - from) >>> 6] |= 1L << (i - from);
+      }
+      this.keys = keys;
+      this.values = values;
+    }
+
+    long[] get(final int key) {
+      final int mask = keys.length - 1;
+      for (int slot = slot(key, mask); values[slot] != null;
+          slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          return values[slot];
+        }
+      }
+      return null;
+    }
+
+    private static int slot(final int key, final int mask) {
+      final int mixed = key * 0x9E3779B9;
+      return (mixed ^ mixed >>> 16) & mask;
+    }
+  }
+}
@@ -0,0 +1,459 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import org.bytediff.engine.DiffInfo.DiffType;
+
+/**
+ * Block matching in the spirit of rsync and xdelta. Source is cut into blocks
+ * of fixed size indexed by rolling hash, then window of the same size is
+ * rolled over target and looked up at every offset, so blocks are found
+ * wherever they were moved in time linear in length of inputs. Found blocks
+ * are extended over equal elements around them.
+ *
+ * <p>Chain of blocks in order of both inputs with the largest total length
+ * stays in place and is reported as matches. Other blocks are reported as
+ * moved, or as copied when their source overlaps the chain or an earlier
+ * move. Gaps between blocks of the chain are left to Myers' algorithm, so
+ * only the small differences around blocks are searched.
+ *
+ * <p>Every source element ends up in exactly one matched, deleted, replaced
+ * or moved range and every target element in exactly one range other than
+ * deleted.
+ */
+final class BlockDiff {
+
+  private final Sequence source;
+
+  private final Sequence target;
+
+  private final int blockSize;
+
+  private final Budget budget;
+
+  private final KGramIndex index;
+
+  /* found blocks in order of target */
+  private int[] sourceStarts = new int[16];
+
+  private int[] targetStarts = new int[16];
+
+  private int[] lengths = new int[16];
+
+  private int count;
+
+  /* moved blocks by source start, disjoint */
+  private int[] movedStarts;
+
+  private int[] movedEnds;
+
+  private int moves;
+
+  private Ranges out;
+
+  /**
+   * @param index source blocks indexed by {@code index}, shared by any
+   *              number of comparisons with the same source
+   */
+  BlockDiff(@Nonnull final Sequence source, @Nonnull final KGramIndex index,
+      @Nonnull final Sequence target, final int blockSize,
+      @Nonnull final Budget budget) {
+    this.source = source;
+    this.index = index;
+    this.target = target;
+    this.blockSize = blockSize;
+    this.budget = budget;
+  }
+
+  /**
+   * Indexes hashes of source blocks by position of their first occurrence.
+   * Index is only read by comparisons, so it can be used by many threads.
+   */
+  static KGramIndex index(@Nonnull final Sequence source,
+      final int blockSize) {
+    final KGramIndex index = new KGramIndex();
+    for (int s = 0; s + blockSize <= source.length(); s += blockSize) {
+      index.putIfAbsent(s, KGramIndex.hash(source, s, blockSize));
+    }
+    return index;
+  }
+
+  /**
+   * @return ranges in order of target
+   */
+  Ranges computeRanges() {
+    find();
+    final boolean[] chained = chain();
+    out = new Ranges(2 * count + 4);
+
+    /* chained blocks are in order of source too and disjoint after chain() */
+    int chainLength = 0;
+    final int[] chain = new int[count];
+    for (int i = 0; i < count; i++) {
+      if (chained[i]) {
+        chain[chainLength++] = i;
+      }
+    }
+    final DiffType[] types = classify(chained, chain, chainLength);
+    sortMoves(types);
+
+    int sourceFrom = 0;
+    int targetFrom = 0;
+    int block = 0;
+    for (int anchor = 0; anchor <= count; anchor++) {
+      if (anchor < count && !chained[anchor]) {
+        continue;
+      }
+      final int sourceTo = anchor < count ? sourceStarts[anchor]
+          : source.length();
+      final int targetTo = anchor < count ? targetStarts[anchor]
+          : target.length();
+      gap(sourceFrom, sourceTo, targetFrom, targetTo, block, anchor, types);
+      if (anchor < count) {
+        emit(DiffType.MATCH, sourceTo, sourceTo + lengths[anchor] - 1,
+            targetTo, targetTo + lengths[anchor] - 1);
+        sourceFrom = sourceTo + lengths[anchor];
+        targetFrom = targetTo + lengths[anchor];
+      }
+      block = anchor + 1;
+    }
+    return out;
+  }
+
+  /**
+   * @return number of blocks found
+   */
+  int count() {
+    return count;
+  }
+
+  /**
+   * Rolls window of block size over target. Window equal to a source block
+   * is extended back to the previous block and forward as far as elements
+   * are equal, then search goes on after it.
+   */
+  private void find() {
+    final int n = source.length();
+    final int m = target.length();
+    final int k = blockSize;
+    if (n < k || m < k) {
+      return;
+    }
+    final long power = KGramIndex.power(k);
+    int covered = 0;
+    int t = 0;
+    long hash = KGramIndex.hash(target, 0, k);
+    while (true) {
+      final int s = index.get(hash);
+      if (s >= 0 && source.commonPrefix(s, s + k, target, t, t + k) == k) {
+        final int before = source.commonSuffix(0, s, target, covered, t);
+        final int after = source.commonPrefix(s + k, n, target, t + k, m);
+        add(s - before, t - before, before + k + after);
+        covered = t + k + after;
+        t = covered;
+        if (t + k > m) {
+          return;
+        }
+        hash = KGramIndex.hash(target, t, k);
+      } else {
+        if (t + k >= m) {
+          return;
+        }
+        hash = KGramIndex.roll(target, hash, t, k, power);
+        t++;
+      }
+    }
+  }
+
+  private void add(final int sourceStart, final int targetStart,
+      final int length) {
+    if (count == lengths.length) {
+      sourceStarts = Arrays.copyOf(sourceStarts, 2 * count);
+      targetStarts = Arrays.copyOf(targetStarts, 2 * count);
+      lengths = Arrays.copyOf(lengths, 2 * count);
+    }
+    sourceStarts[count] = sourceStart;
+    targetStarts[count] = targetStart;
+    lengths[count] = length;
+    count++;
+  }
+
+  /**
+   * Picks blocks with increasing source starts of the largest total length,
+   * by longest increasing subsequence weighted by length over a Fenwick tree
+   * of prefix maxima. Overlaps of chained blocks in source are cut off the
+   * later block, blocks cut to nothing are dropped.
+   *
+   * @return whether block is in the chain
+   */
+  private boolean[] chain() {
+    final boolean[] chained = new boolean[count];
+    if (count == 0) {
+      return chained;
+    }
+    final long[] bySource = new long[count];
+    for (int i = 0; i < count; i++) {
+      bySource[i] = (long) sourceStarts[i] << 32 | i;
+    }
+    Arrays.sort(bySource);
+    final int[] rank = new int[count];
+    for (int i = 0, r = 0; i < count; i++) {
+      if (i > 0 && bySource[i] >>> 32 != bySource[i - 1] >>> 32) {
+        r++;
+      }
+      rank[(int) bySource[i]] = r + 1;
+    }
+
+    final long[] tree = new long[count + 1];
+    final int[] treeBlock = new int[count + 1];
+    Arrays.fill(treeBlock, -1);
+    final int[] previous = new int[count];
+    long best = -1;
+    int last = -1;
+    for (int i = 0; i < count; i++) {
+      long total = 0;
+      int before = -1;
+      for (int j = rank[i] - 1; j > 0; j -= j & -j) {
+        if (tree[j] > total) {
+          total = tree[j];
+          before = treeBlock[j];
+        }
+      }
+      total += lengths[i];
+      previous[i] = before;
+      for (int j = rank[i]; j <= count; j += j & -j) {
+        if (total > tree[j]) {
+          tree[j] = total;
+          treeBlock[j] = i;
+        }
+      }
+      if (total > best) {
+        best = total;
+        last = i;
+      }
+    }
+    for (int i = last; i >= 0; i = previous[i]) {
+      chained[i] = true;
+    }
+
+    int sourceEnd = 0;
+    for (int i = 0; i < count; i++) {
+      if (!chained[i]) {
+        continue;
+      }
+      final int overlap = sourceEnd - sourceStarts[i];
+      if (overlap >= lengths[i]) {
+        chained[i] = false;
+        lengths[i] = 0;
+        continue;
+      }
+      if (overlap > 0) {
+        sourceStarts[i] += overlap;
+        targetStarts[i] += overlap;
+        lengths[i] -= overlap;
+      }
+      sourceEnd = sourceStarts[i] + lengths[i];
+    }
+    return chained;
+  }
+
+  /**
+   * Blocks off the chain are taken in order of target. Block is copied if
+   * its source overlaps a chained block or an earlier move, otherwise it is
+   * moved. Moves are kept in a Fenwick tree of prefix maxima of their source
+   * ends by rank of source start. Moves are disjoint, so a block overlaps
+   * one of them exactly when the largest end of moves starting before its
+   * end is past its start.
+   *
+   * @param chain chained blocks in order of source
+   * @return type of each block off the chain
+   */
+  private DiffType[] classify(@Nonnull final boolean[] chained,
+      @Nonnull final int[] chain, final int chainLength) {
+    final DiffType[] types = new DiffType[count];
+    final int[] starts = new int[count];
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      if (!chained[i] && lengths[i] > 0) {
+        starts[size++] = sourceStarts[i];
+      }
+    }
+    Arrays.sort(starts, 0, size);
+
+    final int[] tree = new int[size + 1];
+    for (int i = 0; i < count; i++) {
+      if (chained[i] || lengths[i] == 0) {
+        continue;
+      }
+      final int start = sourceStarts[i];
+      final int end = start + lengths[i];
+      int movedEnd = 0;
+      for (int j = lowerBound(starts, size, end); j > 0; j -= j & -j) {
+        movedEnd = Math.max(movedEnd, tree[j]);
+      }
+      if (movedEnd > start || overlapsChain(start, end, chain, chainLength)) {
+        types[i] = DiffType.COPY;
+        continue;
+      }
+      types[i] = DiffType.MOVE;
+      for (int j = lowerBound(starts, size, start) + 1; j <= size;
+          j += j & -j) {
+        tree[j] = Math.max(tree[j], end);
+      }
+    }
+    return types;
+  }
+
+  /**
+   * Collects moved blocks into {@code movedStarts} and {@code movedEnds} in
+   * order of source.
+   */
+  private void sortMoves(@Nonnull final DiffType[] types) {
+    final long[] bySource = new long[count];
+    moves = 0;
+    for (int i = 0; i < count; i++) {
+      if (types[i] == DiffType.MOVE) {
+        bySource[moves++] = (long) sourceStarts[i] << 32
+            | sourceStarts[i] + lengths[i];
+      }
+    }
+    Arrays.sort(bySource, 0, moves);
+    movedStarts = new int[moves];
+    movedEnds = new int[moves];
+    for (int i = 0; i < moves; i++) {
+      movedStarts[i] = (int) (bySource[i] >>> 32);
+      movedEnds[i] = (int) bySource[i];
+    }
+  }
+
+  /**
+   * @return index of the first of sorted {@code values[0, size)} not less
+   *         than key, {@code size} if there is none
+   */
+  private static int lowerBound(@Nonnull final int[] values, final int size,
+      final int key) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (values[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Binary search of the last chained block starting before {@code end}.
+   */
+  private boolean overlapsChain(final int start, final int end,
+      @Nonnull final int[] chain, final int chainLength) {
+    int low = 0;
+    int high = chainLength - 1;
+    int last = -1;
+    while (low <= high) {
+      final int middle = (low + high) >>> 1;
+      if (sourceStarts[chain[middle]] < end) {
+        last = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return last >= 0
+        && sourceStarts[chain[last]] + lengths[chain[last]] > start;
+  }
+
+  /**
+   * Emits ranges of target {@code [targetFrom, targetTo)} between two chained
+   * blocks. Moved and copied blocks split it into pieces, moved blocks split
+   * source {@code [sourceFrom, sourceTo)} the same way. Pieces of both are
+   * paired in order and compared by Myers' algorithm, source pieces left
+   * over are deleted at the end of the gap, target pieces left over
+   * inserted.
+   */
+  private void gap(final int sourceFrom, final int sourceTo,
+      final int targetFrom, final int targetTo, final int firstBlock,
+      final int endBlock, @Nonnull final DiffType[] types) {
+    final int first = lowerBound(movedStarts, moves, sourceFrom);
+    final int last = lowerBound(movedStarts, moves, sourceTo);
+    final int[] pieces = new int[2 * (last - first + 1)];
+    int size = 0;
+    int from = sourceFrom;
+    for (int move = first; move < last; move++) {
+      if (movedStarts[move] > from) {
+        pieces[size++] = from;
+        pieces[size++] = movedStarts[move];
+      }
+      from = movedEnds[move];
+    }
+    if (sourceTo > from) {
+      pieces[size++] = from;
+      pieces[size++] = sourceTo;
+    }
+
+    int paired = 0;
+    int x = sourceFrom;
+    int y = targetFrom;
+    for (int block = firstBlock; block <= endBlock; block++) {
+      final int pieceEnd = block < endBlock ? targetStarts[block] : targetTo;
+      if (block < endBlock && lengths[block] == 0) {
+        continue;
+      }
+      if (pieceEnd > y) {
+        if (paired < size) {
+          compare(pieces[paired], pieces[paired + 1], y, pieceEnd);
+          x = pieces[paired + 1];
+          paired += 2;
+        } else {
+          emit(DiffType.INSERT, x - 1, x - 1, y, pieceEnd - 1);
+        }
+      }
+      if (block < endBlock) {
+        final int s = sourceStarts[block];
+        final int t = targetStarts[block];
+        emit(types[block], s, s + lengths[block] - 1,
+            t, t + lengths[block] - 1);
+        y = t + lengths[block];
+      }
+    }
+    for (; paired < size; paired += 2) {
+      emit(DiffType.DELETE, pieces[paired], pieces[paired + 1] - 1,
+          targetTo - 1, targetTo - 1);
+    }
+  }
+
+  private void compare(final int sourceFrom, final int sourceTo,
+      final int targetFrom, final int targetTo) {
+    final EditScript script = Diff.computeEditScript(source, sourceFrom,
+        sourceTo, target, targetFrom, targetTo, false, budget);
+    Diff.computeInfo(script, script.size(),
+        (type, sourceStart, sourceEnd, targetStart, targetEnd) ->
+            emit(type, sourceFrom + sourceStart, sourceFrom + sourceEnd,
+                targetFrom + targetStart, targetFrom + targetEnd));
+  }
+
+  /**
+   * Adds range, empty matches are skipped and matches adjacent to previous
+   * match merged with it.
+   */
+  private void emit(@Nonnull final DiffType type, final int sourceStart,
+      final int sourceEnd, final int targetStart, final int targetEnd) {
+    if (type == DiffType.MATCH) {
+      if (sourceEnd < sourceStart) {
+        return;
+      }
+      final int last = out.size - 1;
+      if (last >= 0 && out.type(last) == DiffType.MATCH
+          && out.sourceEnds[last] + 1 == sourceStart
+          && out.targetEnds[last] + 1 == targetStart) {
+        out.sourceEnds[last] = sourceEnd;
+        out.targetEnds[last] = targetEnd;
+        return;
+      }
+    }
+    out.accept(type, sourceStart, sourceEnd, targetStart, targetEnd);
+  }
+}
@@ -0,0 +1,112 @@
+package org.bytediff.engine;
+
+import java.util.function.Consumer;
+
+/**
+ * Limits of a single comparison, see {@code DiffOptions}. Algorithms which
+ * run out of budget approximate the rest of the result and mark it here.
+ *
+ * <p>When stats are collected it also counts the work of the search,
+ * algorithms report their counters once per searched region.
+ */
+final class Budget {
+
+  static final Budget UNLIMITED = new Budget(Integer.MAX_VALUE, 0, false,
+      null);
+
+  /**
+   * Number of edits searched for in a single region before it is split
+   * heuristically.
+   */
+  final int maxCost;
+
+  private final long deadline;
+
+  private final boolean timed;
+
+  private final Consumer<DiffStats> listener;
+
+  private volatile boolean approximated;
+
+  private long diagonals;
+
+  private long snakeLength;
+
+  private long scratchBytes;
+
+  private long searchNanos;
+
+  Budget(final int maxCost, final long deadline, final boolean timed,
+      final Consumer<DiffStats> listener) {
+    this.maxCost = maxCost;
+    this.deadline = deadline;
+    this.timed = timed;
+    this.listener = listener;
+  }
+
+  boolean isExpired() {
+    return timed && System.nanoTime() - deadline >= 0;
+  }
+
+  void approximate() {
+    approximated = true;
+  }
+
+  /**
+   * @return whether any part of the result was approximated
+   */
+  boolean isApproximated() {
+    return approximated;
+  }
+
+  /**
+   * Adds counters of a searched region. Regions may be searched
+   * concurrently.
+   *
+   * @param diagonals    number of diagonals explored
+   * @param snakeLength  number of matches followed along diagonals
+   * @param scratchBytes size of work arrays of the search
+   */
+  void record(final long diagonals, final long snakeLength,
+      final long scratchBytes) {
+    if (listener == null) {
+      return;
+    }
+    synchronized (this) {
+      this.diagonals += diagonals;
+      this.snakeLength += snakeLength;
+      this.scratchBytes = Math.max(this.scratchBytes, scratchBytes);
+    }
+  }
+
+  void searched(final long nanos) {
+    if (listener == null) {
+      return;
+    }
+    searchNanos = nanos;
+  }
+
+  boolean isRecorded() {
+    return listener != null;
+  }
+
+  synchronized long diagonals() {
+    return diagonals;
+  }
+
+  synchronized long snakeLength() {
+    return snakeLength;
+  }
+
+  synchronized long scratchBytes() {
+    return scratchBytes;
+  }
+
+  long searchNanos() {
+    return searchNanos;
+  }
+
+  void publish(final DiffStats stats) {
+    listener.accept(stats);
+  }
+}
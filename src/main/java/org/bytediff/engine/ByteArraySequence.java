@@ -0,0 +1,61 @@
+package org.bytediff.engine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Sequence backed by byte array. Bytes are read as unsigned values.
+ */
+final class ByteArraySequence extends PrimitiveArraySequence {
+
+  private final byte[] array;
+
+  ByteArraySequence(@Nonnull final byte[] array) {
+    this.array = array;
+  }
+
+  @Override
+  public int length() {
+    return array.length;
+  }
+
+  @Override
+  public char charAt(final int index) {
+    return (char) (array[index] & 0xFF);
+  }
+
+  @Override
+  public String toString(final int from, final int to) {
+    return new String(array, from, to - from, StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  boolean isBinary() {
+    return true;
+  }
+
+  @Override
+  void copyBytes(final int from, final int to,
+      @Nonnull final byte[] destination, final int offset) {
+    System.arraycopy(array, from, destination, offset, to - from);
+  }
+
+  @Override
+  int hashAt(final int index) {
+    return array[index] & 0xFF;
+  }
+
+  @Override
+  boolean equalAt(final int index, @Nonnull final Sequence other,
+      final int otherIndex) {
+    return array[index] == ((ByteArraySequence) other).array[otherIndex];
+  }
+
+  @Override
+  int mismatch(final int from, final int to, @Nonnull final Sequence other,
+      final int otherFrom, final int otherTo) {
+    return Arrays.mismatch(array, from, to,
+        ((ByteArraySequence) other).array, otherFrom, otherTo);
+  }
+}
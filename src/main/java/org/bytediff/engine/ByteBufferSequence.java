@@ -0,0 +1,112 @@
+package org.bytediff.engine;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nonnull;
+
+/**
+ * Sequence backed by byte buffer, typically a file mapped into memory. Only
+ * absolute reads are made, the buffer itself is never moved. Bytes are read as
+ * unsigned values.
+ */
+final class ByteBufferSequence extends Sequence {
+
+  private final ByteBuffer buffer;
+
+  ByteBufferSequence(@Nonnull final ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  @Override
+  public int length() {
+    return buffer.limit();
+  }
+
+  @Override
+  public char charAt(final int index) {
+    return (char) (buffer.get(index) & 0xFF);
+  }
+
+  @Override
+  public String toString(final int from, final int to) {
+    final byte[] bytes = new byte[to - from];
+    slice(buffer, from, to).get(bytes);
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+
+  @Override
+  boolean isBinary() {
+    return true;
+  }
+
+  @Override
+  void copyBytes(final int from, final int to,
+      @Nonnull final byte[] destination, final int offset) {
+    slice(buffer, from, to).get(destination, offset, to - from);
+  }
+
+  @Override
+  int hashAt(final int index) {
+    return buffer.get(index) & 0xFF;
+  }
+
+  @Override
+  int commonPrefix(final int from, final int to, @Nonnull final Sequence other,
+      final int otherFrom, final int otherTo) {
+    final ByteBuffer that = ((ByteBufferSequence) other).buffer;
+    final int max = Math.min(to - from, otherTo - otherFrom);
+
+    int prefix = 0;
+    while (prefix < max && prefix < SCALAR_SUFFIX
+        && buffer.get(from + prefix) == that.get(otherFrom + prefix)) {
+      prefix++;
+    }
+    if (prefix < SCALAR_SUFFIX || prefix == max) {
+      return prefix;
+    }
+    int common = slice(buffer, from + prefix, from + max)
+        .mismatch(slice(that, otherFrom + prefix, otherFrom + max));
+    return common < 0 ? max : prefix + common;
+  }
+
+  @Override
+  int commonSuffix(final int from, final int to, @Nonnull final Sequence other,
+      final int otherFrom, final int otherTo) {
+    final ByteBuffer that = ((ByteBufferSequence) other).buffer;
+    final int max = Math.min(to - from, otherTo - otherFrom);
+
+    int suffix = 0;
+    while (suffix < max && suffix < SCALAR_SUFFIX
+        && buffer.get(to - suffix - 1) == that.get(otherTo - suffix - 1)) {
+      suffix++;
+    }
+    if (suffix < SCALAR_SUFFIX) {
+      return suffix;
+    }
+    while (suffix < max) {
+      int block = Math.min(SUFFIX_BLOCK, max - suffix);
+      if (slice(buffer, to - suffix - block, to - suffix)
+          .mismatch(slice(that, otherTo - suffix - block, otherTo - suffix))
+          == -1) {
+        suffix += block;
+        continue;
+      }
+      while (buffer.get(to - suffix - 1) == that.get(otherTo - suffix - 1)) {
+        suffix++;
+      }
+      break;
+    }
+    return suffix;
+  }
+
+  /**
+   * View of {@code [from, to)}, so that bulk comparison can run on it without
+   * touching position of shared buffer.
+   */
+  private static ByteBuffer slice(@Nonnull final ByteBuffer buffer,
+      final int from, final int to) {
+    final ByteBuffer view = buffer.duplicate();
+    view.limit(to).position(from);
+    return view;
+  }
+}
@@ -0,0 +1,65 @@
+package org.bytediff.engine;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Sequence backed by char array.
+ */
+final class CharArraySequence extends PrimitiveArraySequence {
+
+  private final char[] array;
+
+  CharArraySequence(@Nonnull final char[] array) {
+    this.array = array;
+  }
+
+  @Override
+  public int length() {
+    return array.length;
+  }
+
+  @Override
+  public char charAt(final int index) {
+    return array[index];
+  }
+
+  @Override
+  public String toString(final int from, final int to) {
+    return new String(array, from, to - from);
+  }
+
+  @Override
+  public CharSequence view(final int from, final int to) {
+    return CharBuffer.wrap(array, from, to - from).slice().asReadOnlyBuffer();
+  }
+
+  @Override
+  int hashAt(final int index) {
+    return array[index];
+  }
+
+  @Override
+  boolean equalAt(final int index, @Nonnull final Sequence other,
+      final int otherIndex) {
+    return array[index] == ((CharArraySequence) other).array[otherIndex];
+  }
+
+  @Override
+  int mismatch(final int from, final int to, @Nonnull final Sequence other,
+      final int otherFrom, final int otherTo) {
+    return Arrays.mismatch(array, from, to,
+        ((CharArraySequence) other).array, otherFrom, otherTo);
+  }
+
+  @Override
+  boolean isText() {
+    return true;
+  }
+
+  @Override
+  char[] chars() {
+    return array;
+  }
+}
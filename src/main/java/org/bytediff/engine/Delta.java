@@ -0,0 +1,354 @@
+package org.bytediff.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.CRC32;
+import javax.annotation.Nonnull;
+import lombok.experimental.UtilityClass;
+import org.bytediff.engine.DiffInfo.Cursor;
+
+/**
+ * Compact binary delta of byte sequences, in the spirit of VCDIFF. Matched,
+ * moved and copied ranges are stored as references to the source, inserted
+ * and replaced ranges as their bytes, deleted ranges not at all, so delta of
+ * similar inputs is a small fraction of the target. Applying the delta to
+ * the same source gives the target back.
+ *
+ * <p>Format, integers are unsigned LEB128 varints:
+ * <pre>
+ * magic     'B' 'D' 'L' 1
+ * header    source length, target length
+ * commands  copy: length &lt;&lt; 1, zigzag(source offset - end of previous copy)
+ *           add:  length &lt;&lt; 1 | 1, length bytes
+ * trailer   CRC32 of target, 4 bytes big endian
+ * </pre>
+ * Commands follow until whole target is written.
+ */
+@UtilityClass
+public class Delta {
+
+  private static final byte[] MAGIC = {'B', 'D', 'L', 1};
+
+  private static final int COPY = 0;
+
+  private static final int ADD = 1;
+
+  /**
+   * Size of buffers moving bytes between sequences and streams.
+   */
+  private static final int BUFFER = 1 << 16;
+
+  /**
+   * Encodes ranges of a diff of byte sequences.
+   *
+   * @param info diff computed from byte arrays, byte buffers or files
+   * @return delta
+   * @throws IllegalArgumentException if compared sequences are not bytes
+   */
+  public byte[] encode(@Nonnull final DiffInfo info) {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      encode(info, out);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Like {@link #encode(DiffInfo)}, writing delta to a stream. Stream is
+   * flushed, but not closed.
+   *
+   * @param info diff computed from byte arrays, byte buffers or files
+   * @param out  stream receiving delta
+   * @throws IOException if stream fails
+   */
+  public void encode(@Nonnull final DiffInfo info,
+      @Nonnull final OutputStream out) throws IOException {
+    final Sequence source = info.getSourceSequence();
+    final Sequence target = info.getTargetSequence();
+    if (!source.isBinary() || !target.isBinary()) {
+      throw new IllegalArgumentException("Delta needs byte sequences, got "
+          + source.getClass().getSimpleName() + " and "
+          + target.getClass().getSimpleName());
+    }
+
+    final OutputStream buffered = new BufferedOutputStream(out, BUFFER);
+    final byte[] chunk = new byte[Math.min(BUFFER, target.length() + 1)];
+    buffered.write(MAGIC);
+    writeVarint(buffered, source.length());
+    writeVarint(buffered, target.length());
+
+    long copyEnd = 0;
+    final Cursor range = info.cursor();
+    while (range.next()) {
+      switch (range.getDiffType()) {
+        case MATCH:
+        case MOVE:
+        case COPY:
+          final int start = range.getSourceStart();
+          final int length = range.getSourceEnd() - start + 1;
+          if (length > 0) {
+            writeVarint(buffered, (long) length << 1 | COPY);
+            final long shift = start - copyEnd;
+            writeVarint(buffered, shift << 1 ^ shift >> 63);
+            copyEnd = start + length;
+          }
+          break;
+        case INSERT:
+        case REPLACE:
+          final int from = range.getTargetStart();
+          final int to = range.getTargetEnd() + 1;
+          writeVarint(buffered, (long) (to - from) << 1 | ADD);
+          for (int i = from; i < to; i += chunk.length) {
+            final int end = Math.min(to, i + chunk.length);
+            target.copyBytes(i, end, chunk, 0);
+            buffered.write(chunk, 0, end - i);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    final CRC32 crc = new CRC32();
+    for (int i = 0; i < target.length(); i += chunk.length) {
+      final int end = Math.min(target.length(), i + chunk.length);
+      target.copyBytes(i, end, chunk, 0);
+      crc.update(chunk, 0, end - i);
+    }
+    writeInt(buffered, (int) crc.getValue());
+    buffered.flush();
+  }
+
+  /**
+   * Reconstructs target by applying delta to the source it was computed
+   * from.
+   *
+   * @param source source of the diff
+   * @param delta  delta made by {@code encode}
+   * @return target of the diff
+   * @throws IllegalArgumentException if delta is corrupt or made for other
+   *                                  source
+   */
+  public byte[] apply(@Nonnull final byte[] source,
+      @Nonnull final byte[] delta) {
+    final ArrayInput in = new ArrayInput(delta);
+    for (byte b : MAGIC) {
+      if (in.read() != b) {
+        throw new IllegalArgumentException("Not a delta");
+      }
+    }
+    checkSource(source, in.readVarint());
+    final byte[] target = new byte[checkLength(in.readVarint())];
+
+    long copyEnd = 0;
+    int written = 0;
+    while (written < target.length) {
+      final long command = in.readVarint();
+      final int length = checkLength(command >>> 1);
+      if (length > target.length - written) {
+        throw new IllegalArgumentException("Corrupt delta, command at "
+            + in.position + " exceeds target");
+      }
+      if ((command & 1) == COPY) {
+        final long shift = in.readVarint();
+        final long offset = copyEnd + (shift >>> 1 ^ -(shift & 1));
+        checkCopy(source, offset, length);
+        System.arraycopy(source, (int) offset, target, written, length);
+        copyEnd = offset + length;
+      } else {
+        in.readBytes(target, written, length);
+      }
+      written += length;
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(target, 0, target.length);
+    if (in.readInt() != (int) crc.getValue()) {
+      throw new IllegalArgumentException("Checksum of target doesn't match");
+    }
+    return target;
+  }
+
+  /**
+   * Like {@link #apply(byte[], byte[])}, reading delta from a stream and
+   * writing target to another one as commands are read. Delta is read byte
+   * by byte, so a buffered stream should be given. Checksum is verified
+   * after whole target was written.
+   *
+   * @param source source of the diff
+   * @param delta  stream of delta made by {@code encode}
+   * @param target stream receiving target, flushed but not closed
+   * @throws IOException              if streams fail
+   * @throws IllegalArgumentException if delta is corrupt or made for other
+   *                                  source, like in {@code apply(byte[],
+   *                                  byte[])}
+   */
+  public void apply(@Nonnull final byte[] source,
+      @Nonnull final InputStream delta, @Nonnull final OutputStream target)
+      throws IOException {
+    for (byte b : MAGIC) {
+      if (read(delta) != (b & 0xFF)) {
+        throw new IllegalArgumentException("Not a delta");
+      }
+    }
+    checkSource(source, readVarint(delta));
+    final long targetLength = readVarint(delta);
+
+    final CRC32 crc = new CRC32();
+    final byte[] chunk = new byte[(int) Math.min(BUFFER, targetLength + 1)];
+    long copyEnd = 0;
+    long written = 0;
+    while (written < targetLength) {
+      final long command = readVarint(delta);
+      final int length = checkLength(command >>> 1);
+      if (length > targetLength - written) {
+        throw new IllegalArgumentException(
+            "Corrupt delta, command exceeds target");
+      }
+      if ((command & 1) == COPY) {
+        final long shift = readVarint(delta);
+        final long offset = copyEnd + (shift >>> 1 ^ -(shift & 1));
+        checkCopy(source, offset, length);
+        target.write(source, (int) offset, length);
+        crc.update(source, (int) offset, length);
+        copyEnd = offset + length;
+      } else {
+        for (long left = length; left > 0; ) {
+          final int n = delta.read(chunk, 0, (int) Math.min(left,
+              chunk.length));
+          if (n < 0) {
+            throw new IllegalArgumentException(
+                "Delta ends inside of added bytes");
+          }
+          target.write(chunk, 0, n);
+          crc.update(chunk, 0, n);
+          left -= n;
+        }
+      }
+      written += length;
+    }
+    int checksum = 0;
+    for (int i = 0; i < 4; i++) {
+      checksum = checksum << 8 | read(delta);
+    }
+    target.flush();
+    if (checksum != (int) crc.getValue()) {
+      throw new IllegalArgumentException("Checksum of target doesn't match");
+    }
+  }
+
+  private void checkSource(@Nonnull final byte[] source, final long length) {
+    if (length != source.length) {
+      throw new IllegalArgumentException("Delta is made for source of "
+          + length + " bytes, got " + source.length);
+    }
+  }
+
+  private int checkLength(final long length) {
+    if (length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Corrupt delta, length " + length);
+    }
+    return (int) length;
+  }
+
+  private void checkCopy(@Nonnull final byte[] source, final long offset,
+      final int length) {
+    if (offset < 0 || offset + length > source.length) {
+      throw new IllegalArgumentException("Corrupt delta, copy of [" + offset
+          + ", " + (offset + length) + ") outside of source");
+    }
+  }
+
+  private void writeVarint(@Nonnull final OutputStream out, long value)
+      throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private void writeInt(@Nonnull final OutputStream out, final int value)
+      throws IOException {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private int read(@Nonnull final InputStream in) throws IOException {
+    final int b = in.read();
+    if (b < 0) {
+      throw new IllegalArgumentException("Delta ends too early");
+    }
+    return b;
+  }
+
+  private long readVarint(@Nonnull final InputStream in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final int b = read(in);
+      value |= (long) (b & 0x7F) << shift;
+      if (b < 0x80) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Corrupt delta, varint too long");
+  }
+
+  /**
+   * Reads delta held in an array.
+   */
+  private static final class ArrayInput {
+
+    private final byte[] data;
+
+    private int position;
+
+    ArrayInput(@Nonnull final byte[] data) {
+      this.data = data;
+    }
+
+    int read() {
+      if (position == data.length) {
+        throw new IllegalArgumentException("Delta ends too early");
+      }
+      return data[position++];
+    }
+
+    long readVarint() {
+      long value = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final int b = read();
+        value |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+      throw new IllegalArgumentException("Corrupt delta, varint too long");
+    }
+
+    int readInt() {
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        value = value << 8 | read() & 0xFF;
+      }
+      return value;
+    }
+
+    void readBytes(@Nonnull final byte[] destination, final int offset,
+        final int length) {
+      if (length > data.length - position) {
+        throw new IllegalArgumentException(
+            "Delta ends inside of added bytes");
+      }
+      System.arraycopy(data, position, destination, offset, length);
+      position += length;
+    }
+  }
+}
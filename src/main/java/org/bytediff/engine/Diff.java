@@ -1,12 +1,19 @@
 package org.bytediff.engine;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 import javax.annotation.Nonnull;
-import lombok.NoArgsConstructor;
 import lombok.experimental.UtilityClass;
+import org.bytediff.engine.DiffEvents.RangesEvent;
+import org.bytediff.engine.DiffEvents.SearchEvent;
+import org.bytediff.engine.DiffEvents.SurrogatesEvent;
 import org.bytediff.engine.DiffInfo.DiffType;
 
 
@@ -15,198 +22,840 @@ import org.bytediff.engine.DiffInfo.DiffType;
  * targetCP)} method. It implements Meyer's algorithm of O(ND) complexity, where
  * N stands for {@code sourceCP.length + targetCP.length} and D is a number of
  * character insertions or deletions taking sourceCP to targetCP.
+ *
+ * <p>Common prefix and suffix are skipped up front with vectorized array
+ * comparison, so only the differing core of similar inputs is searched.
+ *
+ * <p>When D grows so big that remembering the search gets expensive it
+ * switches to the linear space variant of the algorithm, which finds ranges
+ * of the same cost with O(N) memory. Among equally short scripts it may pick
+ * a different one, so insertions and deletions can be placed differently
+ * than greedy search would place them.
+ *
+ * <p>Besides chars and bytes any {@code Sequence}, of ints, longs or objects
+ * matched by custom {@code Equivalence}, can be compared.
+ *
+ * <p>Text can be compared line by line or word by word, see {@code
+ * Granularity}.
+ *
+ * <p>Other algorithms, patience or histogram diff, can be chosen per call
+ * with {@code DiffAlgorithm}. Cost and time of the search can be bounded
+ * with {@code DiffOptions}.
+ *
+ * <p>When only the amount of difference matters {@code Diff.distance} and
+ * {@code Diff.similarity} compute it without ranges.
+ *
+ * <p>Big inputs can be compared with {@code Diff.computeParallel}, which
+ * splits them at unique common k-grams and diffs the pieces concurrently.
+ *
+ * <p>Big inputs with moved blocks are best compared by block matching, see
+ * {@code DiffOptions.withBlockSize}, which reports moved and copied ranges.
+ *
+ * <p>Search, building of ranges and surrogate pair fix up are recorded as
+ * flight recorder events, work of a comparison can be observed with {@code
+ * DiffOptions.withStatsListener}.
  */
 @UtilityClass
 public class Diff {
 
   /**
-   * Comparison of char arrays produces linked list of transformations. {@code
-   * Op} describes the character of link.
+   * Maximal number of ints kept for the trace of the greedy search. Trace
+   * grows as D^2 / 2, the limit is reached around D = 2900.
    */
-  private enum Op {
-    INSERT, //addition of character to source
-    DELETE, //deletion of character from source
-    MATCH,  //no insertion or deletion is required
-    SOURCE //special type, linked list always starts with it
+  static final int TRACE_LIMIT = 1 << 22;
+
+  /**
+   * Largest D whose trace of (D + 1) * (D + 2) / 2 ints fits into
+   * {@code TRACE_LIMIT}.
+   */
+  private static final int MAX_TRACED_D =
+      (int) ((Math.sqrt(8.0 * TRACE_LIMIT + 1) - 3) / 2);
+
+  /**
+   * Calculates insert,delete,replace,match ranges and returns them wrapped in a
+   * structure.
+   *
+   * @param source array compared against target
+   * @param target source of truth array
+   * @return {@code DiffInfo}
+   */
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target) {
+    return compute(source, target, DiffAlgorithm.myers());
+  }
+
+  /**
+   * Calculates insert,delete,replace,match ranges with given algorithm.
+   *
+   * @param source    array compared against target
+   * @param target    source of truth array
+   * @param algorithm algorithm computing the ranges
+   * @return {@code DiffInfo}
+   */
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final DiffAlgorithm algorithm) {
+    return compute(source, target,
+        DiffOptions.defaults().withAlgorithm(algorithm));
+  }
+
+  /**
+   * Calculates insert,delete,replace,match ranges with given options.
+   *
+   * @param source  array compared against target
+   * @param target  source of truth array
+   * @param options algorithm and limits of the comparison
+   * @return {@code DiffInfo}
+   */
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final DiffOptions options) {
+    return compute(new CharArraySequence(input(source, options)),
+        new CharArraySequence(input(target, options)), options);
   }
 
   /**
-   * Element of linked list containing all operations transforming source to
-   * target.
+   * Calculates insert,delete,replace,match ranges of whole lines or words.
+   * Tokens are interned to int ids which are compared instead of chars, so
+   * long texts with few changed lines are compared in a fraction of time.
+   * Ranges are given in char offsets, each of them covers whole tokens.
+   *
+   * @param source      array compared against target
+   * @param target      source of truth array
+   * @param granularity unit of comparison
+   * @return {@code DiffInfo}
    */
-  @NoArgsConstructor
-  private static class EditNode {
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final Granularity granularity) {
+    return compute(source, target, granularity, DiffOptions.defaults());
+  }
 
-    /* internal */ int sourceIndex;
+  /**
+   * Like {@link #compute(char[], char[], Granularity)} with given algorithm.
+   *
+   * @param source      array compared against target
+   * @param target      source of truth array
+   * @param granularity unit of comparison
+   * @param algorithm   algorithm comparing token ids
+   * @return {@code DiffInfo}
+   */
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final Granularity granularity,
+      @Nonnull final DiffAlgorithm algorithm) {
+    return compute(source, target, granularity,
+        DiffOptions.defaults().withAlgorithm(algorithm));
+  }
 
-    /* internal */ int targetIndex;
+  /**
+   * Like {@link #compute(char[], char[], Granularity)} with given options.
+   *
+   * @param source      array compared against target
+   * @param target      source of truth array
+   * @param granularity unit of comparison
+   * @param options     algorithm and limits of comparison of token ids
+   * @return {@code DiffInfo}
+   */
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final Granularity granularity,
+      @Nonnull final DiffOptions options) {
+    final char[] sourceCopy = input(source, options);
+    final char[] targetCopy = input(target, options);
+
+    final TokenInterner interner = new TokenInterner();
+    final TokenInterner.Tokens sourceTokens =
+        interner.tokenize(sourceCopy, granularity);
+    final TokenInterner.Tokens targetTokens =
+        interner.tokenize(targetCopy, granularity);
+
+    final Budget budget = options.budget();
+    final EditScript tokenScript = search(options.algorithm(),
+        new IntArraySequence(sourceTokens.ids),
+        new IntArraySequence(targetTokens.ids), budget);
+
+    return toInfo(new CharArraySequence(sourceCopy),
+        new CharArraySequence(targetCopy),
+        toChars(tokenScript, sourceTokens, targetTokens), budget);
+  }
 
-    /* internal */ EditNode parent;
+  private char[] input(@Nonnull final char[] array,
+      @Nonnull final DiffOptions options) {
+    return options.zeroCopy() ? array : Arrays.copyOf(array, array.length);
+  }
 
-    /* internal */ Op operation;
+  private byte[] input(@Nonnull final byte[] array,
+      @Nonnull final DiffOptions options) {
+    return options.zeroCopy() ? array : Arrays.copyOf(array, array.length);
+  }
 
-    @Override
-    public String toString() {
-      return "EditNode[" +
-          sourceIndex +
-          "," +
-          targetIndex +
-          "," +
-          operation +
-          "]";
+  /**
+   * Converts edit script of tokens to edit script of their chars.
+   */
+  private EditScript toChars(@Nonnull final EditScript tokenScript,
+      @Nonnull final TokenInterner.Tokens source,
+      @Nonnull final TokenInterner.Tokens target) {
+    final EditScript script = new EditScript();
+    int x = 0;
+    int y = 0;
+    for (int i = 0; i < tokenScript.size(); i++) {
+      final int op = tokenScript.op(i);
+      final int length = tokenScript.length(i);
+      if (op == EditScript.INSERT) {
+        script.append(op, target.span(y, length));
+        y += length;
+      } else {
+        script.append(op, source.span(x, length));
+        x += length;
+        if (op == EditScript.MATCH) {
+          y += length;
+        }
+      }
     }
+    return script;
+  }
+
+  /**
+   * Calculates insert,delete,replace,match ranges of byte arrays. Bytes are
+   * compared as they are, without widening them to chars first.
+   *
+   * @param source array compared against target
+   * @param target source of truth array
+   * @return {@code DiffInfo} over byte sequences
+   */
+  public DiffInfo compute(@Nonnull final byte[] source,
+      @Nonnull final byte[] target) {
+    return compute(source, target, DiffAlgorithm.myers());
   }
 
+  /**
+   * Calculates insert,delete,replace,match ranges of byte arrays with given
+   * algorithm.
+   *
+   * @param source    array compared against target
+   * @param target    source of truth array
+   * @param algorithm algorithm computing the ranges
+   * @return {@code DiffInfo} over byte sequences
+   */
+  public DiffInfo compute(@Nonnull final byte[] source,
+      @Nonnull final byte[] target, @Nonnull final DiffAlgorithm algorithm) {
+    return compute(source, target,
+        DiffOptions.defaults().withAlgorithm(algorithm));
+  }
 
   /**
-   * Calculates insert,delete,replace,match ranges and returns them wrapped in a
-   * structure.
+   * Calculates insert,delete,replace,match ranges of byte arrays with given
+   * options.
+   *
+   * @param source  array compared against target
+   * @param target  source of truth array
+   * @param options algorithm and limits of the comparison
+   * @return {@code DiffInfo} over byte sequences
+   */
+  public DiffInfo compute(@Nonnull final byte[] source,
+      @Nonnull final byte[] target, @Nonnull final DiffOptions options) {
+    return compute(new ByteArraySequence(input(source, options)),
+        new ByteArraySequence(input(target, options)), options);
+  }
+
+  /**
+   * Calculates insert,delete,replace,match ranges of two files. Files are
+   * mapped into memory and compared in place, returned {@code DiffInfo}
+   * references the mappings instead of copying their content, so files must
+   * not change while it is in use. Each file is limited to 2 GB, which is the
+   * limit of a single mapping.
+   *
+   * @param source file compared against target
+   * @param target source of truth file
+   * @return {@code DiffInfo} over mapped byte sequences
+   * @throws IOException if files can't be read
+   */
+  public DiffInfo compute(@Nonnull final Path source,
+      @Nonnull final Path target) throws IOException {
+    return compute(source, target, DiffOptions.defaults());
+  }
+
+  /**
+   * Like {@link #compute(Path, Path)} with given options, block matching of
+   * {@code DiffOptions.withBlockSize} fits big files best. Zero copy option
+   * is implied.
+   *
+   * @param source  file compared against target
+   * @param target  source of truth file
+   * @param options algorithm and limits of the comparison
+   * @return {@code DiffInfo} over mapped byte sequences
+   * @throws IOException if files can't be read
+   */
+  public DiffInfo compute(@Nonnull final Path source,
+      @Nonnull final Path target, @Nonnull final DiffOptions options)
+      throws IOException {
+    return compute(new ByteBufferSequence(map(source)),
+        new ByteBufferSequence(map(target)), options);
+  }
+
+  /**
+   * Like {@link #compute(char[], char[])}, but pieces of inputs between
+   * unique common k-grams are compared concurrently on given pool. Result is
+   * deterministic and for similar inputs of the same cost as the sequential
+   * one, though ranges of equal cost may be aligned differently.
    *
    * @param source array compared against target
    * @param target source of truth array
+   * @param pool   pool running the comparison
    * @return {@code DiffInfo}
    */
-  public DiffInfo compute(@Nonnull final char[] source,
+  public DiffInfo computeParallel(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final ForkJoinPool pool) {
+    return computeParallel(source, target, DiffOptions.defaults(), pool);
+  }
+
+  /**
+   * Like {@link #computeParallel(char[], char[], ForkJoinPool)} with given
+   * options. Pieces are compared by the chosen algorithm, limits of cost
+   * apply to each of them and time limit to the whole comparison.
+   *
+   * @param source  array compared against target
+   * @param target  source of truth array
+   * @param options algorithm, limits, zero copy and stats listener
+   * @param pool    pool running the comparison
+   * @return {@code DiffInfo}
+   * @throws IllegalArgumentException if options turn on block matching
+   */
+  public DiffInfo computeParallel(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final DiffOptions options,
+      @Nonnull final ForkJoinPool pool) {
+    return computeParallel(
+        options.zeroCopy() ? Sequence.wrap(source) : Sequence.of(source),
+        options.zeroCopy() ? Sequence.wrap(target) : Sequence.of(target),
+        options, pool);
+  }
+
+  /**
+   * Like {@link #compute(byte[], byte[])}, but pieces of inputs between
+   * unique common k-grams are compared concurrently on given pool.
+   *
+   * @param source array compared against target
+   * @param target source of truth array
+   * @param pool   pool running the comparison
+   * @return {@code DiffInfo} over byte sequences
+   */
+  public DiffInfo computeParallel(@Nonnull final byte[] source,
+      @Nonnull final byte[] target, @Nonnull final ForkJoinPool pool) {
+    return computeParallel(source, target, DiffOptions.defaults(), pool);
+  }
+
+  /**
+   * Like {@link #computeParallel(byte[], byte[], ForkJoinPool)} with given
+   * options, see {@link #computeParallel(char[], char[], DiffOptions,
+   * ForkJoinPool)}.
+   *
+   * @param source  array compared against target
+   * @param target  source of truth array
+   * @param options algorithm, limits, zero copy and stats listener
+   * @param pool    pool running the comparison
+   * @return {@code DiffInfo} over byte sequences
+   * @throws IllegalArgumentException if options turn on block matching
+   */
+  public DiffInfo computeParallel(@Nonnull final byte[] source,
+      @Nonnull final byte[] target, @Nonnull final DiffOptions options,
+      @Nonnull final ForkJoinPool pool) {
+    return computeParallel(
+        options.zeroCopy() ? Sequence.wrap(source) : Sequence.of(source),
+        options.zeroCopy() ? Sequence.wrap(target) : Sequence.of(target),
+        options, pool);
+  }
+
+  private DiffInfo computeParallel(@Nonnull final Sequence source,
+      @Nonnull final Sequence target, @Nonnull final DiffOptions options,
+      @Nonnull final ForkJoinPool pool) {
+    if (options.blockSize() > 0) {
+      throw new IllegalArgumentException(
+          "Block matching is not run in parallel");
+    }
+    final Budget budget = options.budget();
+    final ParallelDiff parallel = new ParallelDiff(source, target,
+        options.algorithm(), budget, pool);
+    final EditScript script = search(ParallelDiff.class, source, target,
+        budget, parallel::computeEditScript);
+    return toInfo(source, target, script, budget);
+  }
+
+  /**
+   * Number of insertions and deletions of the shortest edit script taking
+   * source to target, replaced element counts twice. It is the cost of ranges
+   * returned by {@code compute}, found by bit-parallel LCS without building
+   * them.
+   *
+   * @param source array compared against target
+   * @param target source of truth array
+   * @return edit distance
+   */
+  public int distance(@Nonnull final char[] source,
       @Nonnull final char[] target) {
-    final List<EditNode> stage1Result = computeEditPath(source, target);
-    final List<DiffInfo.Diff> stage2Result = computeInfo(stage1Result);
-    enforceSurrogatePairs(source, stage2Result);
-    return new DiffInfo(source, target, stage2Result);
+    return distance(source, target, Integer.MAX_VALUE);
   }
 
   /**
-   * Adjusts offsets for surrogate pairs. If (high, low) surrogate is split
-   * between replace-match or match-replace range boundaries it shrinks match
-   * range by one and extends replace range by one.
+   * Like {@link #distance(char[], char[])}, but stops as soon as distance is
+   * known to exceed {@code maxDistance}.
    *
-   * @param source array against which checks are made
-   * @param diffs  diffs to be adjusted
-   */
-  private void enforceSurrogatePairs(@Nonnull final char[] source,
-      @Nonnull final List<DiffInfo.Diff> diffs) {
-    for (int i = 0; i < diffs.size() - 1; i++) {
-
-      final DiffInfo.Diff curr = diffs.get(i);
-      final DiffInfo.Diff next = diffs.get(i + 1);
-
-      final int idx = curr.getSourceEnd();
-      final char candidate = idx >= 0 ? source[curr.getSourceEnd()] : (char) -1;
-      if (Character.isHighSurrogate(candidate)) {
-        if (curr.getDiffType() == DiffType.MATCH
-            && next.getDiffType() == DiffType.REPLACE) {
-          curr.sourceEnd = curr.sourceEnd - 1;
-          next.sourceStart = next.sourceStart - 1;
-          curr.targetEnd = curr.targetEnd - 1;
-          next.targetStart = next.targetStart - 1;
-        } else if (curr.getDiffType() == DiffType.REPLACE
-            && next.getDiffType() == DiffType.MATCH) {
-          curr.sourceEnd = curr.sourceEnd + 1;
-          next.sourceStart = next.sourceStart + 1;
-          curr.targetEnd = curr.targetEnd + 1;
-          next.targetStart = next.targetStart + 1;
-        }
+   * @param source      array compared against target
+   * @param target      source of truth array
+   * @param maxDistance largest distance of interest
+   * @return edit distance or -1 if it is greater than {@code maxDistance}
+   */
+  public int distance(@Nonnull final char[] source,
+      @Nonnull final char[] target, final int maxDistance) {
+    return distance(new CharArraySequence(source),
+        new CharArraySequence(target), maxDistance);
+  }
+
+  /**
+   * Like {@link #distance(char[], char[])} for byte arrays.
+   *
+   * @param source array compared against target
+   * @param target source of truth array
+   * @return edit distance
+   */
+  public int distance(@Nonnull final byte[] source,
+      @Nonnull final byte[] target) {
+    return distance(source, target, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Like {@link #distance(char[], char[], int)} for byte arrays.
+   *
+   * @param source      array compared against target
+   * @param target      source of truth array
+   * @param maxDistance largest distance of interest
+   * @return edit distance or -1 if it is greater than {@code maxDistance}
+   */
+  public int distance(@Nonnull final byte[] source,
+      @Nonnull final byte[] target, final int maxDistance) {
+    return distance(new ByteArraySequence(source),
+        new ByteArraySequence(target), maxDistance);
+  }
+
+  /**
+   * Share of elements which are matched, {@code 2 * LCS / (N + M)}, 1 for
+   * identical arrays and 0 for arrays with nothing in common.
+   *
+   * @param source array compared against target
+   * @param target source of truth array
+   * @return similarity between 0 and 1
+   */
+  public double similarity(@Nonnull final char[] source,
+      @Nonnull final char[] target) {
+    return similarity(source, target, 0);
+  }
+
+  /**
+   * Like {@link #similarity(char[], char[])}, but stops as soon as similarity
+   * is known to be below {@code minSimilarity}.
+   *
+   * @param source        array compared against target
+   * @param target        source of truth array
+   * @param minSimilarity smallest similarity of interest
+   * @return similarity or 0 if it is below {@code minSimilarity}
+   */
+  public double similarity(@Nonnull final char[] source,
+      @Nonnull final char[] target, final double minSimilarity) {
+    return similarity(new CharArraySequence(source),
+        new CharArraySequence(target), minSimilarity);
+  }
+
+  /**
+   * Like {@link #similarity(char[], char[])} for byte arrays.
+   *
+   * @param source array compared against target
+   * @param target source of truth array
+   * @return similarity between 0 and 1
+   */
+  public double similarity(@Nonnull final byte[] source,
+      @Nonnull final byte[] target) {
+    return similarity(source, target, 0);
+  }
+
+  /**
+   * Like {@link #similarity(char[], char[], double)} for byte arrays.
+   *
+   * @param source        array compared against target
+   * @param target        source of truth array
+   * @param minSimilarity smallest similarity of interest
+   * @return similarity or 0 if it is below {@code minSimilarity}
+   */
+  public double similarity(@Nonnull final byte[] source,
+      @Nonnull final byte[] target, final double minSimilarity) {
+    return similarity(new ByteArraySequence(source),
+        new ByteArraySequence(target), minSimilarity);
+  }
+
+  private int distance(@Nonnull final Sequence source,
+      @Nonnull final Sequence target, final int maxDistance) {
+    final long total = (long) source.length() + target.length();
+    final long minLength = (total - maxDistance + 1) / 2;
+    if (Math.abs(source.length() - target.length()) > maxDistance) {
+      return -1;
+    }
+    final int lcs = BitParallelLcs.lcs(source, target,
+        (int) Math.max(0, minLength));
+    return lcs < 0 ? -1 : (int) (total - 2L * lcs);
+  }
+
+  private double similarity(@Nonnull final Sequence source,
+      @Nonnull final Sequence target, final double minSimilarity) {
+    final long total = (long) source.length() + target.length();
+    if (total == 0) {
+      return 1;
+    }
+    final int lcs = BitParallelLcs.lcs(source, target,
+        (int) Math.ceil(minSimilarity * total / 2 - 1e-9));
+    return lcs < 0 ? 0 : 2.0 * lcs / total;
+  }
+
+  private MappedByteBuffer map(@Nonnull final Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException(
+            "File " + path + " is too big to be mapped: " + size + " bytes");
       }
+      return channel.map(MapMode.READ_ONLY, 0, size);
     }
   }
 
+  /**
+   * Like {@link #compute(char[], char[])} with explicit choice of the
+   * algorithm variant.
+   *
+   * @param source      array compared against target
+   * @param target      source of truth array
+   * @param linearSpace whether to skip greedy search and go straight to
+   *                    linear space variant
+   * @return {@code DiffInfo}
+   */
+  DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target, final boolean linearSpace) {
+    return compute(source, target,
+        linearSpace ? MyersDiff.LINEAR_SPACE : MyersDiff.GREEDY);
+  }
 
   /**
-   * It traverses the list and gathers insert, delete and match batches. On
-   * (insert, delete) it flushes match characters to one range, and on match it
-   * flushes either insert, or delete, or converts them to replace.
+   * Calculates insert,delete,replace,match ranges of two sequences created by
+   * {@code Sequence.of}.
    *
-   * @param editPath linked list containing ordered modifications on source
-   * @return
+   * @param source sequence compared against target
+   * @param target source of truth sequence of the same kind
+   * @return {@code DiffInfo}
    */
-  private List<DiffInfo.Diff> computeInfo(
-      @Nonnull final List<EditNode> editPath) {
+  public DiffInfo compute(@Nonnull final Sequence source,
+      @Nonnull final Sequence target) {
+    return compute(source, target, DiffOptions.defaults());
+  }
 
-    final List<EditNode> inserts = new ArrayList<>();
-    final List<EditNode> deletes = new ArrayList<>();
-    final List<EditNode> matches = new ArrayList<>();
+  /**
+   * Like {@link #compute(Sequence, Sequence)} with given algorithm. Object
+   * sequences are compared by equivalence of the source.
+   *
+   * @param source    sequence compared against target
+   * @param target    source of truth sequence of the same kind
+   * @param algorithm algorithm computing the ranges
+   * @return {@code DiffInfo}
+   * @throws IllegalArgumentException if sequences are of different kinds
+   */
+  public DiffInfo compute(@Nonnull final Sequence source,
+      @Nonnull final Sequence target, @Nonnull final DiffAlgorithm algorithm) {
+    return compute(source, target,
+        DiffOptions.defaults().withAlgorithm(algorithm));
+  }
 
-    final List<DiffInfo.Diff> result = new ArrayList<>();
+  /**
+   * Like {@link #compute(Sequence, Sequence)} with given options.
+   *
+   * @param source  sequence compared against target
+   * @param target  source of truth sequence of the same kind
+   * @param options algorithm and limits of the comparison
+   * @return {@code DiffInfo}
+   * @throws IllegalArgumentException if sequences are of different kinds
+   */
+  public DiffInfo compute(@Nonnull final Sequence source,
+      @Nonnull final Sequence target, @Nonnull final DiffOptions options) {
+    if (source.getClass() != target.getClass()) {
+      throw new IllegalArgumentException("Sequences of different kinds: "
+          + source.getClass().getSimpleName() + ", "
+          + target.getClass().getSimpleName());
+    }
+    return compute(source, null, target, options, options.blockSize());
+  }
 
-    final List<EditNode> trimmedPath = editPath.subList(2, editPath.size());
+  /**
+   * Compares with given options and block size, source blocks may be
+   * indexed up front, see {@code PreparedSource}.
+   *
+   * @param blocks index of source blocks or {@code null} to index them here
+   */
+  DiffInfo compute(@Nonnull final Sequence source, final KGramIndex blocks,
+      @Nonnull final Sequence target, @Nonnull final DiffOptions options,
+      final int blockSize) {
+    final Budget budget = options.budget();
+    if (blockSize > 0) {
+      return computeBlocks(source, blocks, target, blockSize, budget);
+    }
+    final EditScript script = search(options.algorithm(), source, target,
+        budget);
+    return toInfo(source, target, script, budget);
+  }
 
-    for (final EditNode node : trimmedPath) {
-      Op operation = node.operation;
+  /**
+   * Compares by block matching, see {@code BlockDiff}. Block search and
+   * refinement of gaps between blocks are recorded as search.
+   */
+  private DiffInfo computeBlocks(@Nonnull final Sequence source,
+      final KGramIndex index, @Nonnull final Sequence target,
+      final int blockSize, @Nonnull final Budget budget) {
+    final SearchEvent event = new SearchEvent();
+    event.begin();
+    final long start = System.nanoTime();
+    final BlockDiff blocks = new BlockDiff(source,
+        index != null ? index : BlockDiff.index(source, blockSize), target,
+        blockSize, budget);
+    final Ranges ranges = blocks.computeRanges();
+    budget.searched(System.nanoTime() - start);
+    event.end();
+    if (event.shouldCommit()) {
+      event.sourceLength = source.length();
+      event.targetLength = target.length();
+      event.algorithm = BlockDiff.class.getSimpleName();
+      event.cost = ranges.cost();
+      event.optimal = !budget.isApproximated();
+      event.commit();
+    }
+    return toInfo(source, target, ranges, blocks.count(), budget, 0);
+  }
 
-      if (operation == Op.INSERT || operation == Op.DELETE) {
-        if (operation == Op.INSERT) {
-          inserts.add(node);
-        }
-        if (operation == Op.DELETE) {
-          deletes.add(node);
-        }
-        onInsertionOrDeletion(matches, result);
-      }
+  /**
+   * Runs the algorithm over whole sequences and records time it took.
+   */
+  private EditScript search(@Nonnull final DiffAlgorithm algorithm,
+      @Nonnull final Sequence source, @Nonnull final Sequence target,
+      @Nonnull final Budget budget) {
+    return search(algorithm.getClass(), source, target, budget,
+        () -> algorithm.computeEditScript(source, 0, source.length(),
+            target, 0, target.length(), budget));
+  }
 
-      if (operation == Op.MATCH) {
-        matches.add(node);
-        onMatch(inserts, deletes, result);
+  /**
+   * Runs the search and records time it took, under the name of the class
+   * searching.
+   */
+  private EditScript search(@Nonnull final Class<?> searcher,
+      @Nonnull final Sequence source, @Nonnull final Sequence target,
+      @Nonnull final Budget budget,
+      @Nonnull final Supplier<EditScript> search) {
+    final SearchEvent event = new SearchEvent();
+    event.begin();
+    final long start = System.nanoTime();
+    final EditScript script = search.get();
+    budget.searched(System.nanoTime() - start);
+    event.end();
+    if (event.shouldCommit()) {
+      event.sourceLength = source.length();
+      event.targetLength = target.length();
+      event.algorithm = searcher.getSimpleName();
+      event.cost = script.cost();
+      event.optimal = !budget.isApproximated();
+      event.commit();
+    }
+    return script;
+  }
+
+  private DiffInfo toInfo(@Nonnull final Sequence source,
+      @Nonnull final Sequence target, @Nonnull final EditScript stage1Result,
+      @Nonnull final Budget budget) {
+    final RangesEvent rangesEvent = new RangesEvent();
+    rangesEvent.begin();
+    final long start = System.nanoTime();
+    final Ranges stage2Result = new Ranges(stage1Result.size() + 1);
+    computeInfo(stage1Result, stage1Result.size(), stage2Result);
+    final long rangesNanos = System.nanoTime() - start;
+    rangesEvent.end();
+    if (rangesEvent.shouldCommit()) {
+      rangesEvent.sourceLength = source.length();
+      rangesEvent.targetLength = target.length();
+      rangesEvent.runs = stage1Result.size();
+      rangesEvent.ranges = stage2Result.size;
+      rangesEvent.commit();
+    }
+    return toInfo(source, target, stage2Result, stage1Result.size(), budget,
+        rangesNanos);
+  }
+
+  private DiffInfo toInfo(@Nonnull final Sequence source,
+      @Nonnull final Sequence target, @Nonnull final Ranges ranges,
+      final int runs, @Nonnull final Budget budget, final long rangesNanos) {
+    if (ranges.size == 0) {
+      ranges.accept(DiffType.MATCH, 0, -1, 0, -1);
+    }
+
+    long surrogateNanos = 0;
+    if (source.isText()) {
+      final SurrogatesEvent surrogatesEvent = new SurrogatesEvent();
+      surrogatesEvent.begin();
+      final long start = System.nanoTime();
+      enforceSurrogatePairs(source, ranges);
+      surrogateNanos = System.nanoTime() - start;
+      surrogatesEvent.end();
+      if (surrogatesEvent.shouldCommit()) {
+        surrogatesEvent.sourceLength = source.length();
+        surrogatesEvent.targetLength = target.length();
+        surrogatesEvent.ranges = ranges.size;
+        surrogatesEvent.commit();
       }
     }
-    onInsertionOrDeletion(matches, result);
-    onMatch(inserts, deletes, result);
-
-    return result;
-  }
-
-  private void onMatch(@Nonnull final List<EditNode> inserts,
-      @Nonnull final List<EditNode> deletes,
-      @Nonnull final List<DiffInfo.Diff> diffs) {
-
-    int isize = inserts.size();
-    int dsize = deletes.size();
-
-    if (isize == dsize && isize > 0) {
-
-      int start = deletes.get(0).sourceIndex;
-      int end = deletes.get(deletes.size() - 1).sourceIndex;
-      int startTarget = inserts.get(0).targetIndex;
-      int endTarget = inserts.get(inserts.size() - 1).targetIndex;
-
-      final DiffInfo.Diff diff = new DiffInfo.Diff(DiffType.REPLACE, start, end,
-          startTarget, endTarget);
-      diffs.add(diff);
-
-      inserts.clear();
-      deletes.clear();
-    } else if (isize > 0) {
-      int start = inserts.get(0).sourceIndex;
-      int end = inserts.get(inserts.size() - 1).sourceIndex;
-      int startTarget = inserts.get(0).targetIndex;
-      int endTarget = inserts.get(inserts.size() - 1).targetIndex;
-
-      final DiffInfo.Diff diff = new DiffInfo.Diff(DiffType.INSERT, start, end,
-          startTarget, endTarget);
-      diffs.add(diff);
-      inserts.clear();
-    } else if (dsize > 0) {
-      int start = deletes.get(0).sourceIndex;
-      int end = deletes.get(deletes.size() - 1).sourceIndex;
-      int before = deletes.get(0).targetIndex;
-
-      final DiffInfo.Diff diff = new DiffInfo.Diff(DiffType.DELETE, start,
-          end, before, before);
-      diffs.add(diff);
-      deletes.clear();
+
+    final DiffInfo info = new DiffInfo(source, target, ranges,
+        !budget.isApproximated());
+    if (budget.isRecorded()) {
+      budget.publish(new DiffStats(source.length(), target.length(), ranges,
+          runs, budget, rangesNanos, surrogateNanos));
+    }
+    return info;
+  }
+
+  /**
+   * Computes edit script taking {@code source[sourceFrom, sourceTo)} to {@code
+   * target[targetFrom, targetTo)}. Common prefix and suffix are matched up
+   * front, only the core in between is searched.
+   *
+   * @param budget limits of the search
+   * @return edit script
+   */
+  EditScript computeEditScript(@Nonnull final Sequence source,
+      final int sourceFrom, final int sourceTo, @Nonnull final Sequence target,
+      final int targetFrom, final int targetTo, final boolean linearSpace,
+      @Nonnull final Budget budget) {
+    final int prefix = source.commonPrefix(sourceFrom, sourceTo,
+        target, targetFrom, targetTo);
+    final EditScript script = new EditScript();
+    script.append(EditScript.MATCH, prefix);
+    if (sourceFrom + prefix == sourceTo && targetFrom + prefix == targetTo) {
+      return script;
     }
+    final int suffix = source.commonSuffix(sourceFrom + prefix, sourceTo,
+        target, targetFrom + prefix, targetTo);
+
+    script.append(computeCore(source, sourceFrom + prefix, sourceTo - suffix,
+        target, targetFrom + prefix, targetTo - suffix, linearSpace, budget));
+    script.append(EditScript.MATCH, suffix);
+    return script;
   }
 
-  private void onInsertionOrDeletion(@Nonnull final List<EditNode> matches,
-      final List<DiffInfo.Diff> diffs) {
-    if (!matches.isEmpty()) {
-      int start = matches.get(0).sourceIndex;
-      int end = matches.get(matches.size() - 1).sourceIndex;
-      int startTarget = matches.get(0).targetIndex;
-      int endTarget = matches.get(matches.size() - 1).targetIndex;
+  private EditScript computeCore(@Nonnull final Sequence source,
+      final int sourceFrom, final int sourceTo, @Nonnull final Sequence target,
+      final int targetFrom, final int targetTo, final boolean linearSpace,
+      @Nonnull final Budget budget) {
+    EditScript script = linearSpace ? null
+        : computeEditPath(source, sourceFrom, sourceTo,
+            target, targetFrom, targetTo, budget);
+    if (script == null) {
+      script = new LinearSpaceMyers(source, sourceFrom, sourceTo,
+          target, targetFrom, targetTo, budget).computeEditScript();
+    }
+    return script;
+  }
 
-      final DiffInfo.Diff diff = new DiffInfo.Diff(DiffType.MATCH, start,
-          end, startTarget, endTarget);
-      diffs.add(diff);
-      matches.clear();
+  /**
+   * Adjusts offsets for surrogate pairs. If (high, low) surrogate is split
+   * between replace-match or match-replace range boundaries it shrinks match
+   * range by one and extends replace range by one. Ranges apart in either
+   * input, around moved blocks, are left as they are.
+   *
+   * @param source array against which checks are made
+   * @param ranges ranges to be adjusted
+   */
+  private void enforceSurrogatePairs(@Nonnull final Sequence source,
+      @Nonnull final Ranges ranges) {
+    for (int i = 0; i < ranges.size - 1; i++) {
+
+      final int idx = ranges.sourceEnds[i];
+      final char candidate = idx >= 0 ? source.charAt(idx) : (char) -1;
+      if (Character.isHighSurrogate(candidate)
+          && ranges.sourceStarts[i + 1] == idx + 1
+          && ranges.targetStarts[i + 1] == ranges.targetEnds[i] + 1) {
+        final int shift;
+        if (ranges.type(i) == DiffType.MATCH
+            && ranges.type(i + 1) == DiffType.REPLACE) {
+          shift = -1;
+        } else if (ranges.type(i) == DiffType.REPLACE
+            && ranges.type(i + 1) == DiffType.MATCH) {
+          shift = 1;
+        } else {
+          continue;
+        }
+        ranges.sourceEnds[i] += shift;
+        ranges.sourceStarts[i + 1] += shift;
+        ranges.targetEnds[i] += shift;
+        ranges.targetStarts[i + 1] += shift;
+      }
+    }
+  }
+
+  /**
+   * Walks the runs of edit script. Every run of matches becomes one match
+   * range, insertions and deletions between two match runs become either one
+   * replace range, if there is the same number of them, or delete range
+   * followed by insert range.
+   *
+   * @param script edit script taking source to target
+   * @param runs   number of leading runs to walk
+   * @param out    receiver of ranges
+   */
+  void computeInfo(@Nonnull final EditScript script, final int runs,
+      @Nonnull final RangeConsumer out) {
+    int x = 0;
+    int y = 0;
+    int editX = 0;
+    int editY = 0;
+    int inserts = 0;
+    int deletes = 0;
+
+    for (int i = 0; i < runs; i++) {
+      int op = script.op(i);
+      int length = script.length(i);
+
+      if (op == EditScript.MATCH) {
+        onEdits(editX, editY, inserts, deletes, out);
+        inserts = 0;
+        deletes = 0;
+        out.accept(DiffType.MATCH, x, x + length - 1, y, y + length - 1);
+        x += length;
+        y += length;
+      } else {
+        if (inserts == 0 && deletes == 0) {
+          editX = x;
+          editY = y;
+        }
+        if (op == EditScript.INSERT) {
+          inserts += length;
+          y += length;
+        } else {
+          deletes += length;
+          x += length;
+        }
+      }
+    }
+    onEdits(editX, editY, inserts, deletes, out);
+  }
+
+  private void onEdits(final int x, final int y, final int inserts,
+      final int deletes, @Nonnull final RangeConsumer out) {
+    if (inserts == deletes && inserts > 0) {
+      out.accept(DiffType.REPLACE, x, x + deletes - 1, y, y + inserts - 1);
+      return;
+    }
+    if (deletes > 0) {
+      out.accept(DiffType.DELETE, x, x + deletes - 1, y - 1, y - 1);
+    }
+    if (inserts > 0) {
+      out.accept(DiffType.INSERT, x + deletes - 1, x + deletes - 1,
+          y, y + inserts - 1);
     }
   }
 
@@ -215,78 +864,128 @@ public class Diff {
    * diagonal. For d steps along diagonal check all -d..d possible branches and
    * pick minimal edit.
    *
-   * @param source
-   * @param target
-   * @return
+   * <p>After every step furthest reaching x of each diagonal is appended to
+   * the trace, which is enough to walk the path back once target is reached.
+   * If the trace would outgrow {@code TRACE_LIMIT} or D the cost allowed by
+   * budget search is abandoned. Work arrays are reused between calls on the
+   * same thread, see {@code Scratch}.
+   *
+   * @param source     sequence compared against target
+   * @param sourceFrom first index of compared source range
+   * @param sourceTo   index after last of compared source range
+   * @param target     source of truth sequence
+   * @param targetFrom first index of compared target range
+   * @param targetTo   index after last of compared target range
+   * @param budget     limits of the search
+   * @return edit script of the ranges or {@code null} when trace limit or
+   * budget was exceeded
    */
   @SuppressWarnings("PMD")
-  private List<EditNode> computeEditPath(@Nonnull final char[] source,
-      @Nonnull final char[] target) {
+  private EditScript computeEditPath(@Nonnull final Sequence source,
+      final int sourceFrom, final int sourceTo, @Nonnull final Sequence target,
+      final int targetFrom, final int targetTo, @Nonnull final Budget budget) {
 
-    int N = source.length;
-    int M = target.length;
-    int maxD = N + M;
+    int N = sourceTo - sourceFrom;
+    int M = targetTo - targetFrom;
+    int maxD = Math.min(N + M, Math.min(MAX_TRACED_D + 1, budget.maxCost));
     int middleV = maxD;
 
-    int[] V = new int[2 * maxD + 2];
-    Arrays.fill(V, -1);
+    Scratch scratch = Scratch.get();
+    int[] V = scratch.v(2 * maxD + 2);
     V[middleV + 1] = 0;
 
-    EditNode[] Vnodes = new EditNode[2 * maxD + 2];
-    EditNode sourceN = new EditNode();
-    sourceN.sourceIndex = -1;
-    sourceN.targetIndex = -1;
-    sourceN.operation = Op.SOURCE;
-    Vnodes[middleV + 1] = sourceN;
+    int[] trace = scratch.trace(Math.min(1024, TRACE_LIMIT));
+    long diagonals = 0;
+    long snakes = 0;
 
-    for (int D = 0; D < maxD; D++) {
+    for (int D = 0; D <= maxD; D++) {
+      if (budget.isExpired()) {
+        budget.record(diagonals, snakes, 4L * (V.length + trace.length));
+        return null;
+      }
+      diagonals += D + 1;
       for (int k = -D; k <= D; k += 2) {
         int x;
-        EditNode prevN;
-        EditNode currentN = new EditNode();
         if (k == -D
             || k != D
             && V[middleV + k - 1] < V[middleV + k + 1]) {
-
           x = V[middleV + k + 1];
-          prevN = Vnodes[middleV + k + 1];
-          currentN.operation = Op.INSERT;
         } else {
           x = V[middleV + k - 1] + 1;
-          prevN = Vnodes[middleV + k - 1];
-          currentN.operation = Op.DELETE;
         }
         int y = x - k;
-        currentN.sourceIndex = x - 1;
-        currentN.parent = prevN;
-        currentN.targetIndex = y - 1;
-        while (x < N && y < M && source[x] == target[y]) {
-
-          x++;
-          y++;
-          EditNode nextN = new EditNode();
-          nextN.sourceIndex = x - 1;
-          nextN.targetIndex = y - 1;
-          nextN.parent = currentN;
-          nextN.operation = Op.MATCH;
-          currentN = nextN;
-        }
+        int snake = source.commonPrefix(sourceFrom + x, sourceTo,
+            target, targetFrom + y, targetTo);
+        x += snake;
+        y += snake;
+        snakes += snake;
 
         V[middleV + k] = x;
-        Vnodes[middleV + k] = currentN;
 
         if (x >= N && y >= M) {
-          LinkedList<EditNode> path = new LinkedList<>();
-          EditNode it = currentN;
-          while (it != null) {
-            path.offerFirst(it);
-            it = it.parent;
-          }
-          return path;
+          budget.record(diagonals, snakes, 4L * (V.length + trace.length));
+          return backtrack(trace, D, N, M);
         }
       }
+
+      int traceStart = D * (D + 1) / 2;
+      int traceEnd = traceStart + D + 1;
+      if (traceEnd > TRACE_LIMIT) {
+        budget.record(diagonals, snakes, 4L * (V.length + trace.length));
+        return null;
+      }
+      if (traceEnd > trace.length) {
+        trace = scratch.growTrace(trace,
+            Math.min(Math.max(traceEnd, 2 * trace.length), TRACE_LIMIT));
+      }
+      for (int k = -D; k <= D; k += 2) {
+        trace[traceStart + (k + D) / 2] = V[middleV + k];
+      }
+    }
+    if (maxD < N + M) {
+      budget.record(diagonals, snakes, 4L * (V.length + trace.length));
+      return null;
     }
     throw new IllegalStateException("Algorithm implemented incorrectly");
   }
 
+  /**
+   * Walks the path back from (N, M). Snapshot of step d holds furthest
+   * reaching x of diagonals -d, -d + 2, .., d, so it tells from which diagonal
+   * the path entered its current one at step d + 1.
+   */
+  private EditScript backtrack(@Nonnull final int[] trace, final int finalD,
+      final int N, final int M) {
+    final EditScript reversed = new EditScript();
+
+    int x = N;
+    int y = M;
+    for (int D = finalD; D > 0; D--) {
+      int k = x - y;
+      int snapshot = (D - 1) * D / 2;
+
+      int prevK;
+      if (k == -D
+          || k != D
+          && trace[snapshot + (k - 1 + D - 1) / 2]
+          < trace[snapshot + (k + 1 + D - 1) / 2]) {
+        prevK = k + 1;
+      } else {
+        prevK = k - 1;
+      }
+      int prevX = trace[snapshot + (prevK + D - 1) / 2];
+      int prevY = prevX - prevK;
+
+      boolean insert = prevK == k + 1;
+      int editX = insert ? prevX : prevX + 1;
+
+      reversed.append(EditScript.MATCH, x - editX);
+      reversed.append(insert ? EditScript.INSERT : EditScript.DELETE, 1);
+      x = prevX;
+      y = prevY;
+    }
+    reversed.append(EditScript.MATCH, x);
+    return reversed.reverse();
+  }
+
 }
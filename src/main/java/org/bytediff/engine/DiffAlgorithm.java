@@ -0,0 +1,45 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Strategy computing edit script of two sequences, passed to {@code
+ * Diff.compute} to choose how inputs are compared.
+ *
+ * <ul>
+ *   <li>{@link #myers()} finds the shortest edit script, it is the default</li>
+ *   <li>{@link #patience()} aligns elements unique in both inputs first, which
+ *   keeps distinctive elements together at the cost of longer scripts</li>
+ *   <li>{@link #histogram()} is the git variant of patience, it aligns runs
+ *   around the least frequent elements and is fast on inputs with many
+ *   repeated elements</li>
+ * </ul>
+ */
+public abstract class DiffAlgorithm {
+
+  DiffAlgorithm() {
+  }
+
+  public static DiffAlgorithm myers() {
+    return MyersDiff.GREEDY;
+  }
+
+  public static DiffAlgorithm patience() {
+    return PatienceDiff.INSTANCE;
+  }
+
+  public static DiffAlgorithm histogram() {
+    return HistogramDiff.INSTANCE;
+  }
+
+  /**
+   * Computes edit script taking {@code source[sourceFrom, sourceTo)} to {@code
+   * target[targetFrom, targetTo)}.
+   *
+   * @param budget limits of the comparison
+   * @return edit script
+   */
+  abstract EditScript computeEditScript(@Nonnull Sequence source,
+      int sourceFrom, int sourceTo, @Nonnull Sequence target, int targetFrom,
+      int targetTo, @Nonnull Budget budget);
+}
@@ -0,0 +1,245 @@
+package org.bytediff.engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nonnull;
+
+/**
+ * Cache of diffs in front of {@code Diff.compute}, for inputs compared over
+ * and over. Entries are keyed by 128 bit hashes of both inputs, their
+ * lengths and the options, so inputs are neither kept nor compared to find
+ * an entry. Least recently used entries are evicted once estimated size of
+ * cached diffs exceeds the limit.
+ *
+ * <p>Cache is safe for concurrent use. Lookups and updates take a short
+ * lock, diffs are computed outside of it, so concurrent misses of the same
+ * inputs may compute them more than once. Cached {@code DiffInfo} always
+ * holds its own copy of the inputs, zero copy option is ignored.
+ *
+ * <p>Hits return the cached {@code DiffInfo} itself, shared by every caller
+ * of the same inputs, so it must be treated as read-only, including arrays
+ * returned by its {@code getSource} and {@code getTarget}. Results cut short
+ * by a timeout depend on timing rather than inputs and are never cached.
+ * Stats listener of the options is called for computed diffs only, hits
+ * don't publish stats.
+ */
+public final class DiffCache {
+
+  /**
+   * Estimated bytes of {@code DiffInfo} and cache entry besides inputs and
+   * ranges.
+   */
+  static final int ENTRY_OVERHEAD = 256;
+
+  /**
+   * Bytes of a single range, type and four offsets.
+   */
+  static final int RANGE_BYTES = 17;
+
+  private static final long SOURCE_SEED = 0x9E3779B97F4A7C15L;
+
+  private static final long TARGET_SEED = 0xC2B2AE3D27D4EB4FL;
+
+  private final long maxBytes;
+
+  private final LinkedHashMap<Key, Entry> entries =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  private long bytes;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder evictions = new LongAdder();
+
+  private DiffCache(final long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @param maxBytes limit of estimated size of cached diffs
+   * @return empty cache
+   */
+  public static DiffCache withMaxBytes(final long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Negative size " + maxBytes);
+    }
+    return new DiffCache(maxBytes);
+  }
+
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target) {
+    return compute(source, target, DiffOptions.defaults());
+  }
+
+  /**
+   * Cached result of {@link Diff#compute(char[], char[], DiffOptions)}.
+   */
+  public DiffInfo compute(@Nonnull final char[] source,
+      @Nonnull final char[] target, @Nonnull final DiffOptions options) {
+    final Hash128 sourceHash = Hash128.of(source, SOURCE_SEED);
+    final Hash128 targetHash = Hash128.of(target, TARGET_SEED);
+    final Key key = new Key(false, source.length, target.length,
+        sourceHash, targetHash, options.key());
+    final DiffInfo cached = get(key);
+    if (cached != null) {
+      return cached;
+    }
+    final DiffInfo info = Diff.compute(Sequence.of(source),
+        Sequence.of(target), options);
+    if (info.isOptimal() || !options.timed()) {
+      put(key, info, 2L * (source.length + target.length));
+    }
+    return info;
+  }
+
+  public DiffInfo compute(@Nonnull final byte[] source,
+      @Nonnull final byte[] target) {
+    return compute(source, target, DiffOptions.defaults());
+  }
+
+  /**
+   * Cached result of {@link Diff#compute(byte[], byte[], DiffOptions)}.
+   */
+  public DiffInfo compute(@Nonnull final byte[] source,
+      @Nonnull final byte[] target, @Nonnull final DiffOptions options) {
+    final Hash128 sourceHash = Hash128.of(source, SOURCE_SEED);
+    final Hash128 targetHash = Hash128.of(target, TARGET_SEED);
+    final Key key = new Key(true, source.length, target.length,
+        sourceHash, targetHash, options.key());
+    final DiffInfo cached = get(key);
+    if (cached != null) {
+      return cached;
+    }
+    final DiffInfo info = Diff.compute(Sequence.of(source),
+        Sequence.of(target), options);
+    if (info.isOptimal() || !options.timed()) {
+      put(key, info, (long) source.length + target.length);
+    }
+    return info;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /**
+   * @return estimated size of cached diffs
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  private synchronized DiffInfo get(@Nonnull final Key key) {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.info;
+  }
+
+  private synchronized void put(@Nonnull final Key key,
+      @Nonnull final DiffInfo info, final long inputBytes) {
+    final long size = ENTRY_OVERHEAD + inputBytes
+        + (long) RANGE_BYTES * info.size();
+    if (size > maxBytes) {
+      return;
+    }
+    final Entry previous = entries.put(key, new Entry(info, size));
+    bytes += size - (previous == null ? 0 : previous.size);
+
+    final Iterator<Map.Entry<Key, Entry>> eldest =
+        entries.entrySet().iterator();
+    while (bytes > maxBytes) {
+      final Entry evicted = eldest.next().getValue();
+      eldest.remove();
+      bytes -= evicted.size;
+      evictions.increment();
+    }
+  }
+
+  private static final class Entry {
+
+    private final DiffInfo info;
+
+    private final long size;
+
+    Entry(@Nonnull final DiffInfo info, final long size) {
+      this.info = info;
+      this.size = size;
+    }
+  }
+
+  private static final class Key {
+
+    private final boolean binary;
+
+    private final int sourceLength;
+
+    private final int targetLength;
+
+    private final long sourceHigh;
+
+    private final long sourceLow;
+
+    private final long targetHigh;
+
+    private final long targetLow;
+
+    private final List<Object> options;
+
+    Key(final boolean binary, final int sourceLength, final int targetLength,
+        @Nonnull final Hash128 source, @Nonnull final Hash128 target,
+        @Nonnull final List<Object> options) {
+      this.binary = binary;
+      this.sourceLength = sourceLength;
+      this.targetLength = targetLength;
+      this.sourceHigh = source.high();
+      this.sourceLow = source.low();
+      this.targetHigh = target.high();
+      this.targetLow = target.low();
+      this.options = options;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key that = (Key) o;
+      return binary == that.binary && sourceLength == that.sourceLength
+          && targetLength == that.targetLength
+          && sourceHigh == that.sourceHigh && sourceLow == that.sourceLow
+          && targetHigh == that.targetHigh && targetLow == that.targetLow
+          && options.equals(that.options);
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(sourceHigh ^ 31 * targetHigh);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.bytediff.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.annotation.Nonnull;
+
+/**
+ * Compares many pairs of inputs with the same options. Work arrays of the
+ * search are kept per thread and grown as needed, so a run of small diffs
+ * spends its time comparing instead of allocating.
+ *
+ * <p>Pairs can be spread over an executor in batches, each batch is compared
+ * in a row by one task and reuses the work arrays of its thread. Any executor
+ * fits, but work arrays are reused across batches only by pooled threads.
+ * Executor starting a new thread per task, like {@code
+ * Executors.newVirtualThreadPerTaskExecutor()}, allocates them again for
+ * every batch, so a fixed pool is the better fit for many small pairs.
+ * Without executor pairs are compared on the calling thread.
+ */
+public final class DiffEngine {
+
+  /**
+   * Number of pairs compared by a single task.
+   */
+  static final int BATCH = 64;
+
+  private DiffOptions options;
+  private Executor executor;
+
+  private DiffEngine() {
+    this.options = DiffOptions.defaults();
+  }
+
+  public static DiffEngine defaults() {
+    return new DiffEngine();
+  }
+
+  /**
+   * Options are copied, later changes of them don't apply.
+   */
+  public DiffEngine withOptions(@Nonnull DiffOptions value) {
+    this.options = value.copy();
+    return this;
+  }
+
+  public DiffEngine withExecutor(@Nonnull Executor value) {
+    this.executor = value;
+    return this;
+  }
+
+  /**
+   * Compares a single pair on the calling thread.
+   *
+   * @param pair inputs of the same kind
+   * @return {@code DiffInfo}
+   */
+  public DiffInfo compute(@Nonnull final Pair pair) {
+    return Diff.compute(pair.source, pair.target, options);
+  }
+
+  /**
+   * Compares all pairs, on the executor if there is one. Failure of any pair
+   * is thrown once all batches are done.
+   *
+   * @param pairs inputs, each pair of the same kind
+   * @return diffs in order of pairs
+   */
+  public List<DiffInfo> computeAll(@Nonnull final Iterable<Pair> pairs) {
+    final List<Pair> list = new ArrayList<>();
+    pairs.forEach(list::add);
+    final DiffInfo[] results = new DiffInfo[list.size()];
+
+    if (executor == null || list.size() <= BATCH) {
+      compute(list, 0, list.size(), results);
+      return Arrays.asList(results);
+    }
+    final CompletableFuture<?>[] batches =
+        new CompletableFuture<?>[(list.size() + BATCH - 1) / BATCH];
+    for (int i = 0; i < batches.length; i++) {
+      final int from = i * BATCH;
+      final int to = Math.min(list.size(), from + BATCH);
+      batches[i] = CompletableFuture.runAsync(
+          () -> compute(list, from, to, results), executor);
+    }
+    try {
+      CompletableFuture.allOf(batches).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+    return Arrays.asList(results);
+  }
+
+  private void compute(@Nonnull final List<Pair> pairs, final int from,
+      final int to, @Nonnull final DiffInfo[] results) {
+    for (int i = from; i < to; i++) {
+      results[i] = compute(pairs.get(i));
+    }
+  }
+
+  /**
+   * Source and target of a single comparison. Factories copy given data,
+   * like {@code Sequence.of}.
+   */
+  public static final class Pair {
+
+    private final Sequence source;
+
+    private final Sequence target;
+
+    private Pair(@Nonnull final Sequence source,
+        @Nonnull final Sequence target) {
+      this.source = source;
+      this.target = target;
+    }
+
+    public static Pair of(@Nonnull final Sequence source,
+        @Nonnull final Sequence target) {
+      return new Pair(source, target);
+    }
+
+    public static Pair of(@Nonnull final char[] source,
+        @Nonnull final char[] target) {
+      return new Pair(Sequence.of(source), Sequence.of(target));
+    }
+
+    public static Pair of(@Nonnull final CharSequence source,
+        @Nonnull final CharSequence target) {
+      return new Pair(Sequence.of(source), Sequence.of(target));
+    }
+
+    public static Pair of(@Nonnull final byte[] source,
+        @Nonnull final byte[] target) {
+      return new Pair(Sequence.of(source), Sequence.of(target));
+    }
+  }
+}
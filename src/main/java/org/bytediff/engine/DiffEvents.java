@@ -0,0 +1,80 @@
+package org.bytediff.engine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events of phases of {@code Diff.compute}. Events are
+ * disabled unless a recording turns them on, then their fields are filled
+ * only for events which are going to be committed.
+ */
+final class DiffEvents {
+
+  private DiffEvents() {
+  }
+
+  @Name("org.bytediff.Search")
+  @Label("Diff Search")
+  @Description("Search of the edit script")
+  @Category("Diffy")
+  @StackTrace(false)
+  static final class SearchEvent extends Event {
+
+    @Label("Source Length")
+    int sourceLength;
+
+    @Label("Target Length")
+    int targetLength;
+
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Cost")
+    @Description("Number of insertions and deletions of the edit script")
+    long cost;
+
+    @Label("Optimal")
+    boolean optimal;
+  }
+
+  @Name("org.bytediff.Ranges")
+  @Label("Diff Ranges")
+  @Description("Building of ranges from the edit script")
+  @Category("Diffy")
+  @StackTrace(false)
+  static final class RangesEvent extends Event {
+
+    @Label("Source Length")
+    int sourceLength;
+
+    @Label("Target Length")
+    int targetLength;
+
+    @Label("Runs")
+    int runs;
+
+    @Label("Ranges")
+    int ranges;
+  }
+
+  @Name("org.bytediff.Surrogates")
+  @Label("Diff Surrogate Pairs")
+  @Description("Moving of range boundaries off surrogate pairs")
+  @Category("Diffy")
+  @StackTrace(false)
+  static final class SurrogatesEvent extends Event {
+
+    @Label("Source Length")
+    int sourceLength;
+
+    @Label("Target Length")
+    int targetLength;
+
+    @Label("Ranges")
+    int ranges;
+  }
+}
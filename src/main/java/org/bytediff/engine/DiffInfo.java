@@ -1,9 +1,8 @@
 package org.bytediff.engine;
 
-import java.util.Arrays;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -11,34 +10,61 @@ import org.bytediff.meta.Internal;
 
 /**
  * Wrapper around insert, delete, match and replace ranges along with target and
- * source arrays.
+ * source sequences.
+ *
+ * <p>Ranges are stored in columns, one array per field, and read by index or
+ * by {@link #cursor()}. {@link #getDiff()} materializes {@code Diff} objects
+ * on access only.
+ *
+ * <p>Ranges are in order of both inputs, except for moved and copied ones.
+ * Those are in order of target only, with source offsets of their block.
  */
 public class DiffInfo {
 
+  private static final DiffType[] TYPES = DiffType.values();
+
   /**
-   * Diff ranges
+   * Copy of source data
    */
   @Getter
-  private final List<Diff> diff;
+  private final Sequence sourceSequence;
 
   /**
-   * Copy of source array
+   * Copy of target data
    */
   @Getter
-  private final char[] source;
+  private final Sequence targetSequence;
 
   /**
-   * Copy of target array
+   * False if search was cut short by {@code DiffOptions} limits, then ranges
+   * are valid but not minimal
    */
   @Getter
-  private final char[] target;
+  private final boolean optimal;
+
+  private final byte[] types;
+
+  private final int[] sourceStarts;
+
+  private final int[] sourceEnds;
+
+  private final int[] targetStarts;
+
+  private final int[] targetEnds;
+
+  private final int size;
+
+  private List<Diff> diff;
 
 
   /**
-   * Diff element type
+   * Diff element type. Moved and copied ranges come from block matching,
+   * see {@code DiffOptions.withBlockSize}: moved range is a block of source
+   * found elsewhere in target, copied range repeats a block of source which
+   * is also matched or moved.
    */
   public enum DiffType {
-    INSERT, DELETE, REPLACE, MATCH;
+    INSERT, DELETE, REPLACE, MATCH, MOVE, COPY;
   }
 
   /**
@@ -48,83 +74,294 @@ public class DiffInfo {
   public static class Diff {
 
     @Getter
-    /* internal */ DiffType diffType;
+    private final DiffType diffType;
 
     @Getter
-    /* internal */ Integer sourceStart;
+    private final int sourceStart;
 
     @Getter
-    /* internal */ Integer sourceEnd;
+    private final int sourceEnd;
 
     @Getter
-    /* internal */ Integer targetStart;
+    private final int targetStart;
 
     @Getter
-    /* internal */ Integer targetEnd;
+    private final int targetEnd;
+  }
+
+  /**
+   * Flyweight walking ranges in order. Getters describe the range reached by
+   * last successful {@link #next()}.
+   */
+  public final class Cursor {
+
+    private int index = -1;
+
+    private Cursor() {
+    }
+
+    /**
+     * Moves to the next range.
+     *
+     * @return false if there are no more ranges
+     */
+    public boolean next() {
+      if (index + 1 >= size) {
+        index = size;
+        return false;
+      }
+      index++;
+      return true;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public DiffType getDiffType() {
+      return TYPES[types[index]];
+    }
+
+    public int getSourceStart() {
+      return sourceStarts[index];
+    }
+
+    public int getSourceEnd() {
+      return sourceEnds[index];
+    }
+
+    public int getTargetStart() {
+      return targetStarts[index];
+    }
+
+    public int getTargetEnd() {
+      return targetEnds[index];
+    }
+
+    /**
+     * @return source range as a view, without copying
+     */
+    public CharSequence getSourceView() {
+      return sourceView(index);
+    }
+
+    /**
+     * @return target range as a view, without copying
+     */
+    public CharSequence getTargetView() {
+      return targetView(index);
+    }
+  }
+
+  DiffInfo(@Nonnull final Sequence source,
+      @Nonnull final Sequence target,
+      @Nonnull final Ranges ranges, final boolean optimal) {
+    this.sourceSequence = source;
+    this.targetSequence = target;
+    this.types = ranges.types;
+    this.sourceStarts = ranges.sourceStarts;
+    this.sourceEnds = ranges.sourceEnds;
+    this.targetStarts = ranges.targetStarts;
+    this.targetEnds = ranges.targetEnds;
+    this.size = ranges.size;
+    this.optimal = optimal;
+  }
+
+  /**
+   * Number of ranges, at least one.
+   *
+   * @return number of ranges
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * True if there is a single match range, that is inputs are equal.
+   *
+   * @return whether inputs are equal
+   */
+  public boolean isIdentical() {
+    return size == 1 && getDiffType(0) == DiffType.MATCH;
+  }
+
+  public DiffType getDiffType(final int range) {
+    return TYPES[types[checkIndex(range)]];
+  }
+
+  public int getSourceStart(final int range) {
+    return sourceStarts[checkIndex(range)];
+  }
+
+  public int getSourceEnd(final int range) {
+    return sourceEnds[checkIndex(range)];
+  }
+
+  public int getTargetStart(final int range) {
+    return targetStarts[checkIndex(range)];
+  }
+
+  public int getTargetEnd(final int range) {
+    return targetEnds[checkIndex(range)];
+  }
+
+  /**
+   * Chars of source covered by a range, as a view referencing source data.
+   * Empty for insertions.
+   *
+   * @param range index of range
+   * @return view of source range
+   */
+  public CharSequence getSourceView(final int range) {
+    return sourceView(checkIndex(range));
+  }
+
+  /**
+   * Chars of target covered by a range, as a view referencing target data.
+   * Empty for deletions.
+   *
+   * @param range index of range
+   * @return view of target range
+   */
+  public CharSequence getTargetView(final int range) {
+    return targetView(checkIndex(range));
+  }
+
+  /**
+   * Cursor positioned before the first range.
+   *
+   * @return new cursor
+   */
+  public Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * Ranges as {@code Diff} objects. The list is an unmodifiable view, every
+   * {@code get} creates a new object, so prefer {@link #cursor()} for large
+   * results.
+   *
+   * @return view of ranges
+   */
+  public List<Diff> getDiff() {
+    if (diff == null) {
+      diff = new AbstractList<Diff>() {
+        @Override
+        public Diff get(final int index) {
+          return new Diff(getDiffType(index), sourceStarts[index],
+              sourceEnds[index], targetStarts[index], targetEnds[index]);
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+    return diff;
+  }
+
+  /**
+   * Source as char array. For compared char arrays it is their copy, byte
+   * sequences are widened on every call. Sequences of ints, longs and
+   * objects have no chars whose offsets match ranges, use {@code
+   * getSourceSequence} for them.
+   *
+   * @return chars of source
+   * @throws UnsupportedOperationException if source sequence has no chars
+   */
+  public char[] getSource() {
+    return sourceSequence.chars();
   }
 
-  DiffInfo(@Nonnull final char[] source,
-      @Nonnull final char[] target,
-      @Nonnull final List<Diff> diff) {
-    this.source = Arrays.copyOf(source, source.length);
-    this.target = Arrays.copyOf(target, target.length);
-    this.diff = diff;
+  /**
+   * Target as char array. For compared char arrays it is their copy, byte
+   * sequences are widened on every call. Sequences of ints, longs and
+   * objects have no chars whose offsets match ranges, use {@code
+   * getTargetSequence} for them.
+   *
+   * @return chars of target
+   * @throws UnsupportedOperationException if target sequence has no chars
+   */
+  public char[] getTarget() {
+    return targetSequence.chars();
   }
 
   public List<String> getInserts() {
-    return diff.stream().filter(byType(DiffType.INSERT))
-        .map(o -> constructString(target, o.targetStart, o.targetEnd))
-        .collect(Collectors.toList());
+    return slices(DiffType.INSERT, targetSequence, targetStarts, targetEnds);
   }
 
   public List<String> getDeletions() {
-    return diff.stream().filter(byType(DiffType.DELETE))
-        .map(o -> constructString(source, o.sourceStart, o.sourceEnd))
-        .collect(Collectors.toList());
+    return slices(DiffType.DELETE, sourceSequence, sourceStarts, sourceEnds);
   }
 
   public List<String> getReplacements() {
-    return diff.stream().filter(byType(DiffType.REPLACE))
-        .map(o -> constructString(target, o.targetStart, o.targetEnd))
-        .collect(Collectors.toList());
+    return slices(DiffType.REPLACE, targetSequence, targetStarts, targetEnds);
   }
 
   public List<String> getMatches() {
-    return diff.stream().filter(byType(DiffType.MATCH))
-        .map(o -> constructString(source, o.sourceStart, o.sourceEnd))
-        .collect(Collectors.toList());
+    return slices(DiffType.MATCH, sourceSequence, sourceStarts, sourceEnds);
+  }
+
+  public int[] getInsertIndexes() {
+    return sourceStarts(DiffType.INSERT);
+  }
+
+  public int[] getDeletionIndexes() {
+    return sourceStarts(DiffType.DELETE);
+  }
+
+  public int[] getReplacementIndexes() {
+    return sourceStarts(DiffType.REPLACE);
   }
 
-  public List<Integer> getInsertIndexes() {
-    return diff.stream().filter(byType(DiffType.INSERT))
-        .map(Diff::getSourceStart)
-        .collect(Collectors.toList());
+  public int[] getMatchIndexes() {
+    return sourceStarts(DiffType.MATCH);
   }
 
-  public List<Integer> getDeletionIndexes() {
-    return diff.stream().filter(byType(DiffType.DELETE))
-        .map(Diff::getSourceStart)
-        .collect(Collectors.toList());
+  private int checkIndex(final int range) {
+    if (range < 0 || range >= size) {
+      throw new IndexOutOfBoundsException("Range " + range + " of " + size);
+    }
+    return range;
   }
 
-  public List<Integer> getReplacementIndexes() {
-    return diff.stream().filter(byType(DiffType.REPLACE))
-        .map(Diff::getSourceStart)
-        .collect(Collectors.toList());
+  private CharSequence sourceView(final int range) {
+    return types[range] == DiffType.INSERT.ordinal()
+        ? sourceSequence.view(0, 0)
+        : sourceSequence.view(sourceStarts[range], sourceEnds[range] + 1);
   }
 
-  public List<Integer> getMatchIndexes() {
-    return diff.stream().filter(byType(DiffType.MATCH))
-        .map(Diff::getSourceStart)
-        .collect(Collectors.toList());
+  private CharSequence targetView(final int range) {
+    return types[range] == DiffType.DELETE.ordinal()
+        ? targetSequence.view(0, 0)
+        : targetSequence.view(targetStarts[range], targetEnds[range] + 1);
   }
 
-  private Predicate<Diff> byType(final DiffType type) {
-    return e -> e.getDiffType() == type;
+  private List<String> slices(final DiffType type, final Sequence seq,
+      final int[] starts, final int[] ends) {
+    final List<String> result = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      if (types[i] == type.ordinal()) {
+        result.add(seq.toString(starts[i], ends[i] + 1));
+      }
+    }
+    return result;
   }
 
-  private String constructString(final char[] arr, final int start,
-      final int end) {
-    return new String(Arrays.copyOfRange(arr, start, end + 1));
+  private int[] sourceStarts(final DiffType type) {
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (types[i] == type.ordinal()) {
+        count++;
+      }
+    }
+    final int[] result = new int[count];
+    for (int i = 0, j = 0; j < count; i++) {
+      if (types[i] == type.ordinal()) {
+        result[j++] = sourceStarts[i];
+      }
+    }
+    return result;
   }
 }
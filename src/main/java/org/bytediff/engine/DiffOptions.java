@@ -0,0 +1,163 @@
+package org.bytediff.engine;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nonnull;
+
+/**
+ * Settings of a comparison. By default Meyer's algorithm searches for the
+ * shortest edit script no matter how long it takes.
+ *
+ * <p>Search of unrelated inputs is quadratic, it can be bounded by maximal
+ * cost, number of edits searched for in a single region, or by time. When
+ * cost is exceeded region is split at the furthest point reached so far, like
+ * GNU diff does when it finds search too expensive. When time is up all
+ * regions left are reported as replaced. Either way result is no longer
+ * minimal, which is told by {@code DiffInfo.isOptimal}.
+ *
+ * <p>Arrays given to {@code Diff.compute} are copied unless zero copy is
+ * turned on, then {@code DiffInfo} references them and they must not change
+ * while it is in use.
+ *
+ * <p>Big inputs with relocated or repeated content, binaries mostly, can be
+ * compared by block matching instead, see {@code withBlockSize}.
+ *
+ * <p>Work done by each comparison can be observed with a stats listener,
+ * see {@code DiffStats}. Phases of comparisons are also recorded as JDK
+ * Flight Recorder events of category Diffy.
+ */
+public final class DiffOptions {
+
+  private DiffAlgorithm algorithm;
+  private int maxCost;
+  private Duration timeout;
+  private boolean zeroCopy;
+  private int blockSize;
+  private Consumer<DiffStats> statsListener;
+
+  private DiffOptions() {
+    this.algorithm = DiffAlgorithm.myers();
+    this.maxCost = Integer.MAX_VALUE;
+  }
+
+  public static DiffOptions defaults() {
+    return new DiffOptions();
+  }
+
+  public DiffOptions withAlgorithm(@Nonnull DiffAlgorithm value) {
+    this.algorithm = value;
+    return this;
+  }
+
+  /**
+   * @throws IllegalArgumentException if value is negative
+   */
+  public DiffOptions withMaxCost(int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative cost " + value);
+    }
+    this.maxCost = value;
+    return this;
+  }
+
+  /**
+   * @throws IllegalArgumentException if value is negative
+   */
+  public DiffOptions withTimeout(@Nonnull Duration value) {
+    if (value.isNegative()) {
+      throw new IllegalArgumentException("Negative timeout " + value);
+    }
+    this.timeout = value;
+    return this;
+  }
+
+  public DiffOptions withZeroCopy(boolean value) {
+    this.zeroCopy = value;
+    return this;
+  }
+
+  /**
+   * Turns on block matching. Source is cut into blocks of given size, which
+   * are found anywhere in target and reported as matched, moved or copied
+   * ranges. Only the gaps between blocks are compared by the algorithm,
+   * under limits of these options. Blocks should be long enough to be
+   * distinctive, 32 to 64 bytes fit most binaries. Zero turns it off.
+   * Granularity comparisons don't use it.
+   *
+   * @throws IllegalArgumentException if value is negative
+   */
+  public DiffOptions withBlockSize(int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative block size " + value);
+    }
+    this.blockSize = value;
+    return this;
+  }
+
+  /**
+   * Listener called on the comparing thread with stats of every comparison
+   * made with these options, after its {@code DiffInfo} is built. Hits of
+   * {@code DiffCache} are not comparisons and don't call it.
+   */
+  public DiffOptions withStatsListener(@Nonnull Consumer<DiffStats> value) {
+    this.statsListener = value;
+    return this;
+  }
+
+  /**
+   * Copy kept by objects that compare later, so that changes of these
+   * options don't race with their comparisons.
+   */
+  DiffOptions copy() {
+    final DiffOptions copy = new DiffOptions();
+    copy.algorithm = algorithm;
+    copy.maxCost = maxCost;
+    copy.timeout = timeout;
+    copy.zeroCopy = zeroCopy;
+    copy.blockSize = blockSize;
+    copy.statsListener = statsListener;
+    return copy;
+  }
+
+  DiffAlgorithm algorithm() {
+    return algorithm;
+  }
+
+  /**
+   * Snapshot of settings which affect ranges, equal for equal settings.
+   */
+  List<Object> key() {
+    return Arrays.asList(algorithm, maxCost, timeout, blockSize);
+  }
+
+  boolean hasStatsListener() {
+    return statsListener != null;
+  }
+
+  boolean timed() {
+    return timeout != null;
+  }
+
+  int blockSize() {
+    return blockSize;
+  }
+
+  boolean zeroCopy() {
+    return zeroCopy;
+  }
+
+  /**
+   * Starts the clock of a new comparison.
+   */
+  Budget budget() {
+    if (maxCost == Integer.MAX_VALUE && timeout == null
+        && statsListener == null) {
+      return Budget.UNLIMITED;
+    }
+    return timeout == null ? new Budget(maxCost, 0, false, statsListener)
+        : new Budget(maxCost, System.nanoTime() + timeout.toNanos(), true,
+            statsListener);
+  }
+}
@@ -0,0 +1,107 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+import lombok.Getter;
+
+/**
+ * Work done by a single comparison, given to the listener set by {@code
+ * DiffOptions.withStatsListener}. Search counters are summed over all
+ * regions searched, including pieces compared by patience and histogram
+ * diff. Times are wall clock nanoseconds of each phase.
+ */
+public final class DiffStats {
+
+  @Getter
+  private final int sourceLength;
+
+  @Getter
+  private final int targetLength;
+
+  /**
+   * Cost of the ranges, number of inserted and deleted elements, replaced
+   * ones count twice, moved and copied ones not at all
+   */
+  @Getter
+  private final long cost;
+
+  /**
+   * Number of diagonals explored by forward and backward search
+   */
+  @Getter
+  private final long diagonals;
+
+  /**
+   * Number of matches followed along the explored diagonals
+   */
+  @Getter
+  private final long snakeLength;
+
+  /**
+   * Number of runs of the edit script, in block matching number of blocks
+   * found
+   */
+  @Getter
+  private final int runs;
+
+  /**
+   * Number of ranges of the {@code DiffInfo}
+   */
+  @Getter
+  private final int ranges;
+
+  /**
+   * Size of the largest work arrays of a single search
+   */
+  @Getter
+  private final long peakScratchBytes;
+
+  /**
+   * Time of the search of the edit script
+   */
+  @Getter
+  private final long searchNanos;
+
+  /**
+   * Time of building ranges from the edit script
+   */
+  @Getter
+  private final long rangesNanos;
+
+  /**
+   * Time of moving range boundaries off surrogate pairs
+   */
+  @Getter
+  private final long surrogateNanos;
+
+  DiffStats(final int sourceLength, final int targetLength,
+      @Nonnull final Ranges ranges, final int runs,
+      @Nonnull final Budget budget, final long rangesNanos,
+      final long surrogateNanos) {
+    this.sourceLength = sourceLength;
+    this.targetLength = targetLength;
+    this.cost = ranges.cost();
+    this.diagonals = budget.diagonals();
+    this.snakeLength = budget.snakeLength();
+    this.runs = runs;
+    this.ranges = ranges.size;
+    this.peakScratchBytes = budget.scratchBytes();
+    this.searchNanos = budget.searchNanos();
+    this.rangesNanos = rangesNanos;
+    this.surrogateNanos = surrogateNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "DiffStats{sourceLength=" + sourceLength
+        + ", targetLength=" + targetLength
+        + ", cost=" + cost
+        + ", diagonals=" + diagonals
+        + ", snakeLength=" + snakeLength
+        + ", runs=" + runs
+        + ", ranges=" + ranges
+        + ", peakScratchBytes=" + peakScratchBytes
+        + ", searchNanos=" + searchNanos
+        + ", rangesNanos=" + rangesNanos
+        + ", surrogateNanos=" + surrogateNanos + "}";
+  }
+}
@@ -0,0 +1,98 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Ordered list of operations taking source to target. Consecutive operations
+ * of the same kind are merged into one run, each run is packed into a single
+ * {@code long} as {@code length << 2 | op}.
+ */
+final class EditScript {
+
+  static final int MATCH = 0;
+
+  static final int INSERT = 1;
+
+  static final int DELETE = 2;
+
+  private long[] runs;
+
+  private int size;
+
+  EditScript() {
+    this.runs = new long[16];
+  }
+
+  /**
+   * Appends {@code length} operations of given kind, merging them with the
+   * last run if it is of the same kind.
+   *
+   * @param op     one of {@code MATCH}, {@code INSERT}, {@code DELETE}
+   * @param length number of characters affected
+   */
+  void append(final int op, final int length) {
+    if (length <= 0) {
+      return;
+    }
+    if (size > 0 && op(size - 1) == op) {
+      runs[size - 1] += (long) length << 2;
+      return;
+    }
+    if (size == runs.length) {
+      runs = Arrays.copyOf(runs, size * 2);
+    }
+    runs[size++] = (long) length << 2 | op;
+  }
+
+  /**
+   * Appends all runs of other script.
+   *
+   * @param other script continuing this one
+   */
+  void append(@Nonnull final EditScript other) {
+    for (int i = 0; i < other.size; i++) {
+      append(other.op(i), other.length(i));
+    }
+  }
+
+  /**
+   * Reverses order of runs in place, scripts built walking backwards end up in
+   * the right order.
+   *
+   * @return this script
+   */
+  EditScript reverse() {
+    for (int i = 0, j = size - 1; i < j; i++, j--) {
+      long run = runs[i];
+      runs[i] = runs[j];
+      runs[j] = run;
+    }
+    return this;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return number of inserted and deleted elements
+   */
+  long cost() {
+    long cost = 0;
+    for (int i = 0; i < size; i++) {
+      if (op(i) != MATCH) {
+        cost += length(i);
+      }
+    }
+    return cost;
+  }
+
+  int op(final int run) {
+    return (int) (runs[run] & 3);
+  }
+
+  int length(final int run) {
+    return (int) (runs[run] >>> 2);
+  }
+}
@@ -0,0 +1,103 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Occurrences of elements in {@code sequence[from, to)} grouped by element
+ * hash. Each group knows its size and chains its positions in ascending
+ * order. Elements of different value may share a group when their hashes
+ * collide, so positions have to be compared before they are matched.
+ */
+final class ElementIndex {
+
+  static final int NONE = -1;
+
+  private final int from;
+
+  /* per group, open addressing by hash */
+  private final int[] hashes;
+
+  private final int[] heads;
+
+  private final int[] counts;
+
+  /* per position, relative to from */
+  private final int[] next;
+
+  private final int[] groups;
+
+  ElementIndex(@Nonnull final Sequence sequence, final int from,
+      final int to) {
+    this.from = from;
+    final int length = to - from;
+    int capacity = 16;
+    while (capacity < 2 * length) {
+      capacity <<= 1;
+    }
+    this.hashes = new int[capacity];
+    this.heads = new int[capacity];
+    this.counts = new int[capacity];
+    this.next = new int[length];
+    this.groups = new int[length];
+    Arrays.fill(heads, NONE);
+
+    final int mask = capacity - 1;
+    for (int i = to - 1; i >= from; i--) {
+      final int hash = sequence.hashAt(i);
+      int slot = slot(hash, mask);
+      while (heads[slot] != NONE && hashes[slot] != hash) {
+        slot = (slot + 1) & mask;
+      }
+      hashes[slot] = hash;
+      next[i - from] = heads[slot];
+      heads[slot] = i;
+      counts[slot]++;
+      groups[i - from] = slot;
+    }
+  }
+
+  /**
+   * @return group of elements with given hash or {@code NONE}
+   */
+  int find(final int hash) {
+    final int mask = hashes.length - 1;
+    for (int slot = slot(hash, mask); heads[slot] != NONE;
+        slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash) {
+        return slot;
+      }
+    }
+    return NONE;
+  }
+
+  int count(final int group) {
+    return counts[group];
+  }
+
+  /**
+   * @return first position of group
+   */
+  int head(final int group) {
+    return heads[group];
+  }
+
+  /**
+   * @return following position of the same group or {@code NONE}
+   */
+  int next(final int position) {
+    return next[position - from];
+  }
+
+  /**
+   * @return size of the group of element at given position
+   */
+  int countAt(final int position) {
+    return counts[groups[position - from]];
+  }
+
+  private static int slot(final int hash, final int mask) {
+    final int mixed = hash * 0x9E3779B9;
+    return (mixed ^ mixed >>> 16) & mask;
+  }
+}
@@ -0,0 +1,33 @@
+package org.bytediff.engine;
+
+import java.util.Objects;
+
+/**
+ * Decides which elements of object sequences match. Equivalent elements must
+ * have equal hashes.
+ *
+ * @param <T> type of elements
+ */
+public interface Equivalence<T> {
+
+  int hash(T value);
+
+  boolean equivalent(T left, T right);
+
+  /**
+   * @return equivalence of {@code Object.equals} and {@code Object.hashCode}
+   */
+  static <T> Equivalence<T> natural() {
+    return new Equivalence<T>() {
+      @Override
+      public int hash(final T value) {
+        return Objects.hashCode(value);
+      }
+
+      @Override
+      public boolean equivalent(final T left, final T right) {
+        return Objects.equals(left, right);
+      }
+    };
+  }
+}
@@ -0,0 +1,46 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Unit of text compared as a whole. Text is cut into tokens, each distinct
+ * token gets an int id and sequences of ids are compared instead of chars,
+ * ranges are then mapped back to char offsets.
+ */
+public enum Granularity {
+
+  /**
+   * Line along with its line feed.
+   */
+  LINE {
+    @Override
+    int tokenEnd(@Nonnull final char[] text, final int from) {
+      int i = from;
+      while (i < text.length && text[i] != '\n') {
+        i++;
+      }
+      return i < text.length ? i + 1 : i;
+    }
+  },
+
+  /**
+   * Run of whitespace or run of anything else.
+   */
+  WORD {
+    @Override
+    int tokenEnd(@Nonnull final char[] text, final int from) {
+      final boolean space = Character.isWhitespace(text[from]);
+      int i = from + 1;
+      while (i < text.length && Character.isWhitespace(text[i]) == space) {
+        i++;
+      }
+      return i;
+    }
+  };
+
+  /**
+   * @param from start of token, less than text length
+   * @return index after last char of token
+   */
+  abstract int tokenEnd(@Nonnull char[] text, int from);
+}
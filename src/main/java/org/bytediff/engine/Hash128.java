@@ -0,0 +1,135 @@
+package org.bytediff.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import javax.annotation.Nonnull;
+
+/**
+ * 128 bit MurmurHash3 (x64 variant) of arrays, read in 64 bit lanes. Chars
+ * are hashed as their UTF-16 code units, little endian, so a char array and
+ * a byte array holding the same bits hash the same.
+ */
+final class Hash128 {
+
+  private static final long C1 = 0x87c37b91114253d5L;
+
+  private static final long C2 = 0x4cf5ad432745937fL;
+
+  private static final VarHandle LONGS = MethodHandles
+      .byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private long h1;
+
+  private long h2;
+
+  private Hash128(final long seed) {
+    h1 = seed;
+    h2 = seed;
+  }
+
+  static Hash128 of(@Nonnull final byte[] array, final long seed) {
+    final Hash128 hash = new Hash128(seed);
+    final int blocks = array.length / 16;
+    for (int i = 0; i < blocks; i++) {
+      hash.block((long) LONGS.get(array, 16 * i),
+          (long) LONGS.get(array, 16 * i + 8));
+    }
+    long k1 = 0;
+    long k2 = 0;
+    for (int i = array.length - 1; i >= 16 * blocks; i--) {
+      final long b = array[i] & 0xFFL;
+      if (i - 16 * blocks >= 8) {
+        k2 = k2 << 8 | b;
+      } else {
+        k1 = k1 << 8 | b;
+      }
+    }
+    hash.tail(k1, k2);
+    hash.finish(array.length);
+    return hash;
+  }
+
+  static Hash128 of(@Nonnull final char[] array, final long seed) {
+    final Hash128 hash = new Hash128(seed);
+    final int blocks = array.length / 8;
+    for (int i = 0; i < blocks; i++) {
+      hash.block(lane(array, 8 * i), lane(array, 8 * i + 4));
+    }
+    long k1 = 0;
+    long k2 = 0;
+    for (int i = array.length - 1; i >= 8 * blocks; i--) {
+      if (i - 8 * blocks >= 4) {
+        k2 = k2 << 16 | array[i];
+      } else {
+        k1 = k1 << 16 | array[i];
+      }
+    }
+    hash.tail(k1, k2);
+    hash.finish(2L * array.length);
+    return hash;
+  }
+
+  long high() {
+    return h1;
+  }
+
+  long low() {
+    return h2;
+  }
+
+  private static long lane(@Nonnull final char[] array, final int index) {
+    return array[index] | (long) array[index + 1] << 16
+        | (long) array[index + 2] << 32 | (long) array[index + 3] << 48;
+  }
+
+  private void block(long k1, long k2) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    h1 ^= k1;
+    h1 = Long.rotateLeft(h1, 27);
+    h1 += h2;
+    h1 = h1 * 5 + 0x52dce729;
+
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    h2 ^= k2;
+    h2 = Long.rotateLeft(h2, 31);
+    h2 += h1;
+    h2 = h2 * 5 + 0x38495ab5;
+  }
+
+  private void tail(long k1, long k2) {
+    k2 *= C2;
+    k2 = Long.rotateLeft(k2, 33);
+    k2 *= C1;
+    h2 ^= k2;
+
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, 31);
+    k1 *= C2;
+    h1 ^= k1;
+  }
+
+  private void finish(final long length) {
+    h1 ^= length;
+    h2 ^= length;
+    h1 += h2;
+    h2 += h1;
+    h1 = mix(h1);
+    h2 = mix(h2);
+    h1 += h2;
+    h2 += h1;
+  }
+
+  private static long mix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb9fe1a85ec53L;
+    k ^= k >>> 33;
+    return k;
+  }
+}
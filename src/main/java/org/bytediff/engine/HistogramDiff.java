@@ -0,0 +1,88 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Histogram diff as done by git. Occurrences of source elements are counted,
+ * then every common run is extended from a target element. Like in jgit, a
+ * run replaces the best one so far when it is longer or when its least
+ * frequent element is rarer, the last best run becomes the anchor.
+ * Elements occurring in source more than {@code MAX_CHAIN_LENGTH} times
+ * never start a run, if nothing else is common ranges are left to Meyer's
+ * algorithm.
+ */
+final class HistogramDiff extends AnchoredDiff {
+
+  static final HistogramDiff INSTANCE = new HistogramDiff();
+
+  /**
+   * Maximal number of occurrences of an element tried as start of a run.
+   */
+  static final int MAX_CHAIN_LENGTH = 64;
+
+  private HistogramDiff() {
+  }
+
+  @Override
+  boolean findAnchors(@Nonnull final Sequence source, final int sourceFrom,
+      final int sourceTo, @Nonnull final Sequence target, final int targetFrom,
+      final int targetTo, @Nonnull final Anchors anchors) {
+    final ElementIndex index = new ElementIndex(source, sourceFrom, sourceTo);
+
+    boolean common = false;
+    int lowCount = MAX_CHAIN_LENGTH;
+    int bestSource = -1;
+    int bestTarget = -1;
+    int bestLength = 0;
+
+    for (int y = targetFrom; y < targetTo; ) {
+      int nextY = y + 1;
+      final int group = index.find(target.hashAt(y));
+      if (group == ElementIndex.NONE) {
+        y = nextY;
+        continue;
+      }
+      common = true;
+      if (index.count(group) > lowCount) {
+        y = nextY;
+        continue;
+      }
+
+      for (int x = index.head(group); x != ElementIndex.NONE;
+          x = index.next(x)) {
+        if (!source.equalAt(x, target, y)) {
+          continue;
+        }
+        final int before = source.commonSuffix(sourceFrom, x,
+            target, targetFrom, y);
+        final int after = source.commonPrefix(x + 1, sourceTo,
+            target, y + 1, targetTo);
+        final int start = x - before;
+        final int end = x + 1 + after;
+
+        int runCount = index.count(group);
+        for (int i = start; i < end && runCount > 1; i++) {
+          runCount = Math.min(runCount, index.countAt(i));
+        }
+        nextY = Math.max(nextY, y + 1 + after);
+        if (end - start > bestLength || runCount < lowCount) {
+          bestSource = start;
+          bestTarget = y - before;
+          bestLength = end - start;
+          lowCount = runCount;
+        }
+
+        while (index.next(x) != ElementIndex.NONE && index.next(x) < end) {
+          x = index.next(x);
+        }
+      }
+      y = nextY;
+    }
+
+    if (bestLength > 0) {
+      anchors.add(bestSource, bestTarget, bestLength);
+      return true;
+    }
+    return !common;
+  }
+}
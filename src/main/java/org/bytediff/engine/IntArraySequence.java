@@ -0,0 +1,69 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Sequence backed by int array. Elements don't fit in a char, strings are
+ * built of their decimal values, each followed by a space.
+ */
+final class IntArraySequence extends PrimitiveArraySequence {
+
+  private final int[] array;
+
+  IntArraySequence(@Nonnull final int[] array) {
+    this.array = array;
+  }
+
+  @Override
+  public int length() {
+    return array.length;
+  }
+
+  /**
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public char charAt(final int index) {
+    throw new UnsupportedOperationException(
+        "Elements of int sequence are not chars");
+  }
+
+  @Override
+  public boolean hasChars() {
+    return false;
+  }
+
+  @Override
+  public String toString(final int from, final int to) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = from; i < to; i++) {
+      sb.append(array[i]).append(' ');
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public CharSequence view(final int from, final int to) {
+    checkView(from, to);
+    return toString(from, to);
+  }
+
+  @Override
+  int hashAt(final int index) {
+    return array[index];
+  }
+
+  @Override
+  boolean equalAt(final int index, @Nonnull final Sequence other,
+      final int otherIndex) {
+    return array[index] == ((IntArraySequence) other).array[otherIndex];
+  }
+
+  @Override
+  int mismatch(final int from, final int to, @Nonnull final Sequence other,
+      final int otherFrom, final int otherTo) {
+    return Arrays.mismatch(array, from, to,
+        ((IntArraySequence) other).array, otherFrom, otherTo);
+  }
+}
@@ -0,0 +1,206 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Open addressing table from hash of k elements long substring (k-gram) to its
+ * position in a sequence. Hashes are computed with polynomial rolling hash.
+ * Only k-grams whose hash falls into the sample are indexed, the sample depends
+ * on content only, so equal k-grams of two sequences are either both indexed or
+ * both skipped.
+ */
+final class KGramIndex {
+
+  static final int ABSENT = -1;
+
+  /**
+   * Position stored for k-grams seen more than once.
+   */
+  static final int REPEATED = -2;
+
+  private static final long BASE = 0x100000001B3L;
+
+  private static final long MIX = 0x9E3779B97F4A7C15L;
+
+  private static final long SLOT_MIX = 0xC2B2AE3D27D4EB4FL;
+
+  /**
+   * Receives sampled k-grams.
+   */
+  @FunctionalInterface
+  interface Consumer {
+
+    void accept(int position, long hash);
+  }
+
+  private long[] keys;
+  private int[] positions;
+  private int size;
+
+  KGramIndex() {
+    this.keys = new long[16];
+    this.positions = new int[16];
+    Arrays.fill(positions, ABSENT);
+  }
+
+  /**
+   * Indexes sampled k-grams of {@code sequence[from, to)}.
+   *
+   * @param sampleBits one in {@code 2^sampleBits} k-grams is indexed
+   * @return index
+   */
+  static KGramIndex build(@Nonnull final Sequence sequence, final int from,
+      final int to, final int k, final int sampleBits) {
+    final KGramIndex index = new KGramIndex();
+    scan(sequence, from, to, k, sampleBits, index::put);
+    return index;
+  }
+
+  /**
+   * Calls consumer for every sampled k-gram of {@code sequence[from, to)} in
+   * order of positions.
+   *
+   * @param sampleBits one in {@code 2^sampleBits} k-grams is passed on
+   */
+  static void scan(@Nonnull final Sequence sequence, final int from,
+      final int to, final int k, final int sampleBits,
+      @Nonnull final Consumer consumer) {
+    if (to - from < k) {
+      return;
+    }
+    final long power = power(k);
+    long hash = hash(sequence, from, k);
+    for (int i = from; ; i++) {
+      if (isSampled(hash, sampleBits)) {
+        consumer.accept(i, hash);
+      }
+      if (i + k >= to) {
+        break;
+      }
+      hash = roll(sequence, hash, i, k, power);
+    }
+  }
+
+  /**
+   * @return weight of the first element of a k-gram, given to {@code roll}
+   */
+  static long power(final int k) {
+    long power = 1;
+    for (int i = 1; i < k; i++) {
+      power *= BASE;
+    }
+    return power;
+  }
+
+  /**
+   * Moves hash of k-gram at {@code position} one element right.
+   */
+  static long roll(@Nonnull final Sequence sequence, final long hash,
+      final int position, final int k, final long power) {
+    return (hash - sequence.hashAt(position) * power) * BASE
+        + sequence.hashAt(position + k);
+  }
+
+  /**
+   * Hash of k-gram at given position, same as reported by {@code scan}.
+   */
+  static long hash(@Nonnull final Sequence sequence, final int position,
+      final int k) {
+    long hash = 0;
+    for (int i = position; i < position + k; i++) {
+      hash = hash * BASE + sequence.hashAt(i);
+    }
+    return hash;
+  }
+
+  static boolean isSampled(final long hash, final int sampleBits) {
+    return sampleBits == 0 || (hash * MIX) >>> (64 - sampleBits) == 0;
+  }
+
+  /**
+   * @return position of k-gram with given hash, {@code ABSENT} or {@code
+   * REPEATED}
+   */
+  int get(final long hash) {
+    final int mask = keys.length - 1;
+    for (int slot = slot(hash, mask); ; slot = (slot + 1) & mask) {
+      if (positions[slot] == ABSENT) {
+        return ABSENT;
+      }
+      if (keys[slot] == hash) {
+        return positions[slot];
+      }
+    }
+  }
+
+  /**
+   * Stores position of k-gram, or marks it {@code REPEATED} if it is already
+   * there.
+   */
+  void put(final int position, final long hash) {
+    if (2 * (size + 1) > keys.length) {
+      grow();
+    }
+    final int mask = keys.length - 1;
+    for (int slot = slot(hash, mask); ; slot = (slot + 1) & mask) {
+      if (positions[slot] == ABSENT) {
+        keys[slot] = hash;
+        positions[slot] = position;
+        size++;
+        return;
+      }
+      if (keys[slot] == hash) {
+        positions[slot] = REPEATED;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Stores position of k-gram unless one with the same hash is already
+   * there, so the first position is kept.
+   */
+  void putIfAbsent(final int position, final long hash) {
+    if (2 * (size + 1) > keys.length) {
+      grow();
+    }
+    final int mask = keys.length - 1;
+    for (int slot = slot(hash, mask); ; slot = (slot + 1) & mask) {
+      if (positions[slot] == ABSENT) {
+        keys[slot] = hash;
+        positions[slot] = position;
+        size++;
+        return;
+      }
+      if (keys[slot] == hash) {
+        return;
+      }
+    }
+  }
+
+  private void grow() {
+    final long[] oldKeys = keys;
+    final int[] oldPositions = positions;
+    keys = new long[oldKeys.length * 2];
+    positions = new int[oldKeys.length * 2];
+    Arrays.fill(positions, ABSENT);
+
+    final int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldPositions[i] == ABSENT) {
+        continue;
+      }
+      int slot = slot(oldKeys[i], mask);
+      while (positions[slot] != ABSENT) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = oldKeys[i];
+      positions[slot] = oldPositions[i];
+    }
+  }
+
+  private static int slot(final long hash, final int mask) {
+    return Long.hashCode(hash * SLOT_MIX) & mask;
+  }
+}
@@ -0,0 +1,318 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Linear space refinement of Meyer's algorithm. Instead of remembering every
+ * visited node it searches the edit graph from both corners at once until the
+ * two paths overlap on the so called middle snake. The snake splits the graph
+ * into two smaller boxes which are solved recursively. Only forward and
+ * backward {@code V} arrays are kept, so memory is O(N+M) no matter how big D
+ * grows.
+ *
+ * <p>Script found is as short as the greedy one, but ties between equally
+ * short scripts are broken at the middle snake rather than from the origin,
+ * so ranges may be aligned differently, e.g. {@code "a"} to {@code "bbaab"}
+ * matches the second {@code 'a'} instead of the first.
+ *
+ * <p>When search of a box costs more than budget allows, the box is split at
+ * the point furthest from its corner reached by either search, like GNU diff
+ * does. When time is up boxes are reported as replaced without searching.
+ */
+final class LinearSpaceMyers {
+
+  private final Sequence source;
+
+  private final Sequence target;
+
+  private final int sourceFrom;
+
+  private final int sourceTo;
+
+  private final int targetFrom;
+
+  private final int targetTo;
+
+  /**
+   * Furthest reaching x per diagonal of the forward search.
+   */
+  private final int[] forward;
+
+  /**
+   * Furthest reaching y per diagonal of the backward search.
+   */
+  private final int[] backward;
+
+  private final int offset;
+
+  private final Budget budget;
+
+  /* last middle snake found, (startX, startY) -> (endX, endY) */
+  private int startX;
+
+  private int startY;
+
+  private int endX;
+
+  private int endY;
+
+  /* whether the edit of last snake precedes its diagonal */
+  private boolean editFirst;
+
+  /* whether the search was cut short, without a point to split the box at */
+  private boolean givenUp;
+
+  /* counters of the search, see DiffStats */
+  private long diagonals;
+
+  private long snakes;
+
+  LinearSpaceMyers(@Nonnull final Sequence source, final int sourceFrom,
+      final int sourceTo, @Nonnull final Sequence target, final int targetFrom,
+      final int targetTo, @Nonnull final Budget budget) {
+    this.source = source;
+    this.budget = budget;
+    this.target = target;
+    this.sourceFrom = sourceFrom;
+    this.sourceTo = sourceTo;
+    this.targetFrom = targetFrom;
+    this.targetTo = targetTo;
+
+    int maxD = (sourceTo - sourceFrom + targetTo - targetFrom + 1) / 2;
+    this.offset = maxD + 1;
+    this.forward = new int[2 * maxD + 3];
+    this.backward = new int[2 * maxD + 3];
+  }
+
+  /**
+   * Computes shortest edit script taking source range to target range.
+   *
+   * @return {@code EditScript}
+   */
+  EditScript computeEditScript() {
+    final EditScript script = new EditScript();
+    int[] stack = new int[64];
+    int size = push(stack, 0, sourceFrom, sourceTo, targetFrom, targetTo);
+
+    while (size > 0) {
+      size -= 4;
+      if (stack[size] < 0) {
+        script.append(-1 - stack[size], stack[size + 1]);
+        continue;
+      }
+      if (stack.length < size + 24) {
+        stack = Arrays.copyOf(stack, 2 * stack.length);
+      }
+      size = diff(stack[size], stack[size + 1], stack[size + 2],
+          stack[size + 3], script, stack, size);
+    }
+    budget.record(diagonals, snakes,
+        4L * (forward.length + backward.length + stack.length));
+    return script;
+  }
+
+  /**
+   * Appends edit script of box {@code [left, right) x [top, bottom)}, or
+   * pushes what is left to do with it on the stack. Common prefix and suffix
+   * are matched straight away, which also guarantees that middle snake of what
+   * remains splits it into two strictly smaller boxes. Stack holds boxes and
+   * runs, run of {@code op} is stored as {@code -1 - op} followed by its
+   * length.
+   *
+   * @return new size of the stack
+   */
+  private int diff(int left, int right, int top, int bottom,
+      @Nonnull final EditScript script, @Nonnull final int[] stack,
+      int size) {
+
+    int prefix = source.commonPrefix(left, right, target, top, bottom);
+    script.append(EditScript.MATCH, prefix);
+    left += prefix;
+    top += prefix;
+
+    int suffix = source.commonSuffix(left, right, target, top, bottom);
+    right -= suffix;
+    bottom -= suffix;
+
+    if (left == right) {
+      script.append(EditScript.INSERT, bottom - top);
+    } else if (top == bottom) {
+      script.append(EditScript.DELETE, right - left);
+    } else if (budget.isExpired()
+        || findMiddleSnake(left, right, top, bottom) && givenUp) {
+      budget.approximate();
+      script.append(EditScript.DELETE, right - left);
+      script.append(EditScript.INSERT, bottom - top);
+    } else {
+      size = push(stack, size, -1 - EditScript.MATCH, suffix, 0, 0);
+      size = push(stack, size, endX, right, endY, bottom);
+      size = pushSnake(stack, size);
+      return push(stack, size, left, startX, top, startY);
+    }
+    script.append(EditScript.MATCH, suffix);
+    return size;
+  }
+
+  /**
+   * Snake consists of at most one insertion or deletion and a diagonal run of
+   * matches, runs are pushed in reverse order.
+   */
+  private int pushSnake(@Nonnull final int[] stack, int size) {
+    int dx = endX - startX;
+    int dy = endY - startY;
+    int diagonal = Math.min(dx, dy);
+    int edit = dx > dy ? EditScript.DELETE : EditScript.INSERT;
+
+    if (editFirst) {
+      size = push(stack, size, -1 - EditScript.MATCH, diagonal, 0, 0);
+    }
+    size = push(stack, size, -1 - edit, Math.abs(dx - dy), 0, 0);
+    if (!editFirst) {
+      size = push(stack, size, -1 - EditScript.MATCH, diagonal, 0, 0);
+    }
+    return size;
+  }
+
+  private static int push(@Nonnull final int[] stack, final int size,
+      final int a, final int b, final int c, final int d) {
+    stack[size] = a;
+    stack[size + 1] = b;
+    stack[size + 2] = c;
+    stack[size + 3] = d;
+    return size + 4;
+  }
+
+  /**
+   * Runs forward and backward search on the box simultaneously. Forward
+   * diagonal k is {@code (x - left) - (y - top)}, backward diagonal c is
+   * {@code (x - right) - (y - bottom)}. When paths overlap the snake is stored
+   * in {@code startX..endY} fields.
+   *
+   * @return whether the search was cut short by budget, in which case the
+   * snake is an empty split point or {@code givenUp} is set
+   */
+  @SuppressWarnings("PMD")
+  private boolean findMiddleSnake(final int left, final int right,
+      final int top, final int bottom) {
+
+    final int delta = (right - left) - (bottom - top);
+    final boolean odd = (delta & 1) != 0;
+    final int maxD = (right - left + bottom - top + 1) / 2;
+
+    forward[offset + 1] = left;
+    backward[offset + 1] = bottom;
+
+    for (int D = 0; D <= maxD; D++) {
+
+      if (D >= 2 && (2 * D > budget.maxCost || budget.isExpired())) {
+        budget.approximate();
+        split(left, right, top, bottom, D - 1, delta);
+        return true;
+      }
+
+      diagonals += D + 1;
+      for (int k = D; k >= -D; k -= 2) {
+        int c = k - delta;
+        int px;
+        int x;
+        if (k == -D
+            || k != D
+            && forward[offset + k - 1] < forward[offset + k + 1]) {
+          px = x = forward[offset + k + 1];
+        } else {
+          px = forward[offset + k - 1];
+          x = px + 1;
+        }
+        int y = top + (x - left) - k;
+        int py = (D == 0 || x != px) ? y : y - 1;
+
+        int snake = source.commonPrefix(x, right, target, y, bottom);
+        x += snake;
+        y += snake;
+        snakes += snake;
+        forward[offset + k] = x;
+
+        if (odd && c >= -(D - 1) && c <= D - 1
+            && y >= backward[offset + c]) {
+          setSnake(px, py, x, y, true);
+          return false;
+        }
+      }
+
+      diagonals += D + 1;
+      for (int c = D; c >= -D; c -= 2) {
+        int k = c + delta;
+        int py;
+        int y;
+        if (c == -D
+            || c != D
+            && backward[offset + c - 1] > backward[offset + c + 1]) {
+          py = y = backward[offset + c + 1];
+        } else {
+          py = backward[offset + c - 1];
+          y = py - 1;
+        }
+        int x = left + (y - top) + k;
+        int px = (D == 0 || y != py) ? x : x + 1;
+
+        int snake = source.commonSuffix(left, x, target, top, y);
+        x -= snake;
+        y -= snake;
+        snakes += snake;
+        backward[offset + c] = y;
+
+        if (!odd && k >= -D && k <= D && x <= forward[offset + k]) {
+          setSnake(x, y, px, py, false);
+          return false;
+        }
+      }
+    }
+    throw new IllegalStateException("Algorithm implemented incorrectly");
+  }
+
+  /**
+   * Picks the point furthest from its starting corner reached by forward or
+   * backward search of cost D and stores it as an empty snake.
+   */
+  private void split(final int left, final int right, final int top,
+      final int bottom, final int D, final int delta) {
+    int bestX = -1;
+    int bestY = -1;
+    int best = 0;
+    for (int k = -D; k <= D; k += 2) {
+      int x = forward[offset + k];
+      int y = top + (x - left) - k;
+      if (x <= right && y >= top && y <= bottom
+          && (x - left) + (y - top) > best) {
+        best = (x - left) + (y - top);
+        bestX = x;
+        bestY = y;
+      }
+    }
+    for (int c = -D; c <= D; c += 2) {
+      int y = backward[offset + c];
+      int x = left + (y - top) + c + delta;
+      if (x >= left && x <= right && y >= top && y <= bottom
+          && (right - x) + (bottom - y) > best) {
+        best = (right - x) + (bottom - y);
+        bestX = x;
+        bestY = y;
+      }
+    }
+
+    setSnake(bestX, bestY, bestX, bestY, true);
+    givenUp = best == 0 || bestX == left && bestY == top
+        || bestX == right && bestY == bottom;
+  }
+
+  private void setSnake(final int sx, final int sy, final int ex,
+      final int ey, final boolean first) {
+    this.startX = sx;
+    this.startY = sy;
+    this.endX = ex;
+    this.endY = ey;
+    this.editFirst = first;
+    this.givenUp = false;
+  }
+}
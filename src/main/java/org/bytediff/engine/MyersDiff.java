@@ -0,0 +1,28 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Meyer's algorithm, greedy search with fallback to linear space variant or
+ * linear space variant only.
+ */
+final class MyersDiff extends DiffAlgorithm {
+
+  static final MyersDiff GREEDY = new MyersDiff(false);
+
+  static final MyersDiff LINEAR_SPACE = new MyersDiff(true);
+
+  private final boolean linearSpace;
+
+  private MyersDiff(final boolean linearSpace) {
+    this.linearSpace = linearSpace;
+  }
+
+  @Override
+  EditScript computeEditScript(@Nonnull final Sequence source,
+      final int sourceFrom, final int sourceTo, @Nonnull final Sequence target,
+      final int targetFrom, final int targetTo, @Nonnull final Budget budget) {
+    return Diff.computeEditScript(source, sourceFrom, sourceTo,
+        target, targetFrom, targetTo, linearSpace, budget);
+  }
+}
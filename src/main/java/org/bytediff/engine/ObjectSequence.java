@@ -0,0 +1,103 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Sequence of objects matched by {@code Equivalence}. Hashes of all elements
+ * are computed up front, elements are compared only when their hashes are
+ * equal. Elements have no char representation, strings are built of their
+ * {@code toString}.
+ *
+ * @param <T> type of elements
+ */
+final class ObjectSequence<T> extends Sequence {
+
+  private final T[] array;
+
+  private final int[] hashes;
+
+  private final Equivalence<? super T> equivalence;
+
+  ObjectSequence(@Nonnull final T[] array,
+      @Nonnull final Equivalence<? super T> equivalence) {
+    this.array = array;
+    this.equivalence = equivalence;
+    this.hashes = new int[array.length];
+    for (int i = 0; i < array.length; i++) {
+      hashes[i] = equivalence.hash(array[i]);
+    }
+  }
+
+  @Override
+  public int length() {
+    return array.length;
+  }
+
+  @Override
+  public boolean hasChars() {
+    return false;
+  }
+
+  /**
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public char charAt(final int index) {
+    throw new UnsupportedOperationException(
+        "Elements of object sequence are not chars");
+  }
+
+  @Override
+  public String toString(final int from, final int to) {
+    final StringBuilder sb = new StringBuilder();
+    for (int i = from; i < to; i++) {
+      sb.append(array[i]);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Objects have no chars to refer to, view is built of their strings.
+   */
+  @Override
+  public CharSequence view(final int from, final int to) {
+    return toString(from, to);
+  }
+
+  @Override
+  int hashAt(final int index) {
+    return hashes[index];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  int commonPrefix(final int from, final int to, @Nonnull final Sequence other,
+      final int otherFrom, final int otherTo) {
+    final ObjectSequence<T> that = (ObjectSequence<T>) other;
+    final int max = Math.min(to - from, otherTo - otherFrom);
+    int prefix = 0;
+    while (prefix < max
+        && hashes[from + prefix] == that.hashes[otherFrom + prefix]
+        && equivalence.equivalent(array[from + prefix],
+        that.array[otherFrom + prefix])) {
+      prefix++;
+    }
+    return prefix;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  int commonSuffix(final int from, final int to, @Nonnull final Sequence other,
+      final int otherFrom, final int otherTo) {
+    final ObjectSequence<T> that = (ObjectSequence<T>) other;
+    final int max = Math.min(to - from, otherTo - otherFrom);
+    int suffix = 0;
+    while (suffix < max
+        && hashes[to - suffix - 1] == that.hashes[otherTo - suffix - 1]
+        && equivalence.equivalent(array[to - suffix - 1],
+        that.array[otherTo - suffix - 1])) {
+      suffix++;
+    }
+    return suffix;
+  }
+}
@@ -0,0 +1,263 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import javax.annotation.Nonnull;
+
+/**
+ * Divide and conquer variant of the diff. Both sequences are cut at anchors,
+ * k-grams which occur exactly once in source and exactly once in target, like
+ * unique lines of patience diff. Anchors that keep their order in both
+ * sequences are matched and the gaps between them are diffed independently
+ * on a {@code ForkJoinPool} by the chosen algorithm, all under one budget.
+ *
+ * <p>Scripts of the gaps are joined in order, so result doesn't depend on
+ * scheduling. It is as short as the one of {@code Diff.compute} whenever
+ * some shortest script matches the anchors, which is the case for similar
+ * inputs. Equally short scripts may still be aligned differently, as gaps
+ * are searched on their own.
+ */
+final class ParallelDiff {
+
+  /**
+   * Length of anchor k-grams.
+   */
+  static final int ANCHOR_LENGTH = 32;
+
+  /**
+   * One in 2^SAMPLE_BITS k-grams is considered as an anchor.
+   */
+  private static final int SAMPLE_BITS = 4;
+
+  /**
+   * Inputs or gaps shorter than that, summed over source and target, are
+   * diffed in a single task.
+   */
+  static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+  private final Sequence source;
+
+  private final Sequence target;
+
+  private final DiffAlgorithm algorithm;
+
+  private final Budget budget;
+
+  private final ForkJoinPool pool;
+
+  /* matched anchors ordered by both positions, never overlapping */
+  private int[] sourceAnchors;
+
+  private int[] targetAnchors;
+
+  private int anchors;
+
+  ParallelDiff(@Nonnull final Sequence source, @Nonnull final Sequence target,
+      @Nonnull final DiffAlgorithm algorithm, @Nonnull final Budget budget,
+      @Nonnull final ForkJoinPool pool) {
+    this.source = source;
+    this.target = target;
+    this.algorithm = algorithm;
+    this.budget = budget;
+    this.pool = pool;
+  }
+
+  /**
+   * Computes edit script taking whole source to whole target.
+   *
+   * @return edit script
+   */
+  EditScript computeEditScript() {
+    final int sourceLength = source.length();
+    final int targetLength = target.length();
+    final int prefix = source.commonPrefix(0, sourceLength,
+        target, 0, targetLength);
+    final int suffix = source.commonSuffix(prefix, sourceLength,
+        target, prefix, targetLength);
+    final int sourceTo = sourceLength - suffix;
+    final int targetTo = targetLength - suffix;
+
+    if (sourceTo - prefix + targetTo - prefix < SEQUENTIAL_THRESHOLD) {
+      return algorithm.computeEditScript(source, 0, sourceLength,
+          target, 0, targetLength, budget);
+    }
+
+    findAnchors(prefix, sourceTo, prefix, targetTo);
+
+    final EditScript script = new EditScript();
+    script.append(EditScript.MATCH, prefix);
+    script.append(pool.invoke(new Gaps(prefix, sourceTo, prefix, targetTo,
+        0, anchors + 1)));
+    script.append(EditScript.MATCH, suffix);
+    return script;
+  }
+
+  /**
+   * Collects k-grams unique in both ranges, keeps the longest chain of them
+   * increasing in both sequences and drops the ones overlapping their
+   * predecessor.
+   */
+  private void findAnchors(final int sourceFrom, final int sourceTo,
+      final int targetFrom, final int targetTo) {
+    final KGramIndex sourceIndex = KGramIndex.build(source, sourceFrom,
+        sourceTo, ANCHOR_LENGTH, SAMPLE_BITS);
+    final KGramIndex targetIndex = KGramIndex.build(target, targetFrom,
+        targetTo, ANCHOR_LENGTH, SAMPLE_BITS);
+
+    final int[][] candidates = {new int[64], new int[64]};
+    final int[] count = {0};
+    KGramIndex.scan(target, targetFrom, targetTo, ANCHOR_LENGTH, SAMPLE_BITS,
+        (position, hash) -> {
+          final int s = sourceIndex.get(hash);
+          if (s < 0 || targetIndex.get(hash) != position
+              || source.commonPrefix(s, s + ANCHOR_LENGTH, target, position,
+              position + ANCHOR_LENGTH) != ANCHOR_LENGTH) {
+            return;
+          }
+          if (count[0] == candidates[0].length) {
+            candidates[0] = Arrays.copyOf(candidates[0], 2 * count[0]);
+            candidates[1] = Arrays.copyOf(candidates[1], 2 * count[0]);
+          }
+          candidates[0][count[0]] = s;
+          candidates[1][count[0]] = position;
+          count[0]++;
+        });
+
+    final int[] chain = increasingChain(candidates[0], count[0]);
+
+    sourceAnchors = new int[chain.length];
+    targetAnchors = new int[chain.length];
+    anchors = 0;
+    int sourceEnd = sourceFrom;
+    int targetEnd = targetFrom;
+    for (int i : chain) {
+      final int s = candidates[0][i];
+      final int t = candidates[1][i];
+      if (s >= sourceEnd && t >= targetEnd) {
+        sourceAnchors[anchors] = s;
+        targetAnchors[anchors] = t;
+        anchors++;
+        sourceEnd = s + ANCHOR_LENGTH;
+        targetEnd = t + ANCHOR_LENGTH;
+      }
+    }
+  }
+
+  /**
+   * Longest strictly increasing subsequence by patience sorting.
+   *
+   * @return indexes of its elements in order
+   */
+  static int[] increasingChain(@Nonnull final int[] values, final int count) {
+    final int[] tails = new int[count];
+    final int[] previous = new int[count];
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      int low = 0;
+      int high = length;
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
+        if (values[tails[middle]] < values[i]) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      previous[i] = low > 0 ? tails[low - 1] : -1;
+      tails[low] = i;
+      if (low == length) {
+        length++;
+      }
+    }
+
+    final int[] chain = new int[length];
+    for (int i = length - 1, j = length > 0 ? tails[length - 1] : -1; i >= 0;
+        i--, j = previous[j]) {
+      chain[i] = j;
+    }
+    return chain;
+  }
+
+  /**
+   * Diffs gaps {@code [from, to)}, gap i lies between anchors i - 1 and i.
+   * Bounds of the whole box stand for anchors -1 and {@code anchors}.
+   */
+  private final class Gaps extends RecursiveTask<EditScript> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int sourceFrom;
+
+    private final int sourceTo;
+
+    private final int targetFrom;
+
+    private final int targetTo;
+
+    private final int from;
+
+    private final int to;
+
+    Gaps(final int sourceFrom, final int sourceTo, final int targetFrom,
+        final int targetTo, final int from, final int to) {
+      this.sourceFrom = sourceFrom;
+      this.sourceTo = sourceTo;
+      this.targetFrom = targetFrom;
+      this.targetTo = targetTo;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected EditScript compute() {
+      final int sourceStart = gapSourceStart(from);
+      final int targetStart = gapTargetStart(from);
+      final int sourceEnd = gapSourceEnd(to - 1);
+      final int targetEnd = gapTargetEnd(to - 1);
+
+      if (to - from == 1
+          || sourceEnd - sourceStart + targetEnd - targetStart
+          < SEQUENTIAL_THRESHOLD) {
+        final EditScript script = new EditScript();
+        for (int i = from; i < to; i++) {
+          if (i > from) {
+            script.append(EditScript.MATCH, ANCHOR_LENGTH);
+          }
+          script.append(algorithm.computeEditScript(source,
+              gapSourceStart(i), gapSourceEnd(i), target, gapTargetStart(i),
+              gapTargetEnd(i), budget));
+        }
+        return script;
+      }
+
+      final int middle = (from + to) >>> 1;
+      final Gaps left = new Gaps(sourceFrom, sourceTo, targetFrom, targetTo,
+          from, middle);
+      final Gaps right = new Gaps(sourceFrom, sourceTo, targetFrom, targetTo,
+          middle, to);
+      left.fork();
+      final EditScript rightScript = right.compute();
+      final EditScript script = left.join();
+      script.append(EditScript.MATCH, ANCHOR_LENGTH);
+      script.append(rightScript);
+      return script;
+    }
+
+    private int gapSourceStart(final int gap) {
+      return gap == 0 ? sourceFrom : sourceAnchors[gap - 1] + ANCHOR_LENGTH;
+    }
+
+    private int gapTargetStart(final int gap) {
+      return gap == 0 ? targetFrom : targetAnchors[gap - 1] + ANCHOR_LENGTH;
+    }
+
+    private int gapSourceEnd(final int gap) {
+      return gap == anchors ? sourceTo : sourceAnchors[gap];
+    }
+
+    private int gapTargetEnd(final int gap) {
+      return gap == anchors ? targetTo : targetAnchors[gap];
+    }
+  }
+}
@@ -0,0 +1,502 @@
+package org.bytediff.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import lombok.experimental.UtilityClass;
+import org.bytediff.engine.DiffInfo.Cursor;
+import org.bytediff.engine.DiffInfo.DiffType;
+
+/**
+ * Applies ranges of {@code DiffInfo} to a buffer equal to its source, which
+ * gives its target, or reverses them on a buffer equal to its target, which
+ * gives its source. Matched ranges are copied from the given buffer,
+ * inserted, deleted and replaced ones from the sequences of {@code
+ * DiffInfo}, each of them with a single bulk copy in one pass over the
+ * ranges.
+ *
+ * <p>Moved and copied ranges of block matching are copied from the given
+ * buffer like matched ones. Reversing such diffs walks ranges in order of
+ * source instead of their own order.
+ *
+ * <p>Byte buffers can also be patched in place, when their capacity fits
+ * the result and the diff has no moved or copied ranges.
+ */
+@UtilityClass
+public class Patch {
+
+  /**
+   * Size of the buffer of ranges written to channels.
+   */
+  private static final int BUFFER = 1 << 16;
+
+  /**
+   * Applies diff of byte sequences to a copy of its source.
+   *
+   * @param info   diff of byte sequences
+   * @param source array equal to source of the diff
+   * @return target of the diff
+   * @throws IllegalArgumentException if diff is not of bytes or source
+   *                                  length differs
+   */
+  public byte[] apply(@Nonnull final DiffInfo info,
+      @Nonnull final byte[] source) {
+    final byte[] target = new byte[binary(info).getTargetSequence().length()];
+    apply(info, ByteBuffer.wrap(source), ByteBuffer.wrap(target));
+    return target;
+  }
+
+  /**
+   * Recovers source of a diff of byte sequences from a copy of its target.
+   *
+   * @param info   diff of byte sequences
+   * @param target array equal to target of the diff
+   * @return source of the diff
+   * @throws IllegalArgumentException if diff is not of bytes or target
+   *                                  length differs
+   */
+  public byte[] reverse(@Nonnull final DiffInfo info,
+      @Nonnull final byte[] target) {
+    final byte[] source = new byte[binary(info).getSourceSequence().length()];
+    reverse(info, ByteBuffer.wrap(target), ByteBuffer.wrap(source));
+    return source;
+  }
+
+  /**
+   * Applies diff of byte sequences to {@code source[position, limit)} and
+   * puts the result to {@code target} at its position, which is advanced.
+   * Position of source is left as it is.
+   *
+   * @param info   diff of byte sequences
+   * @param source buffer equal to source of the diff
+   * @param target buffer with enough room for target of the diff
+   */
+  public void apply(@Nonnull final DiffInfo info,
+      @Nonnull final ByteBuffer source, @Nonnull final ByteBuffer target) {
+    copy(binary(info), false, source, target);
+  }
+
+  /**
+   * Like {@link #apply(DiffInfo, ByteBuffer, ByteBuffer)} the other way,
+   * puts source of the diff to {@code source}.
+   *
+   * @param info   diff of byte sequences
+   * @param target buffer equal to target of the diff
+   * @param source buffer with enough room for source of the diff
+   */
+  public void reverse(@Nonnull final DiffInfo info,
+      @Nonnull final ByteBuffer target, @Nonnull final ByteBuffer source) {
+    copy(binary(info), true, target, source);
+  }
+
+  /**
+   * Applies diff of byte sequences to {@code source} and writes the result
+   * to a blocking channel. Matched ranges are written straight from source.
+   *
+   * @param info   diff of byte sequences
+   * @param source array equal to source of the diff
+   * @param out    channel receiving target of the diff
+   * @throws IOException if channel fails
+   */
+  public void apply(@Nonnull final DiffInfo info, @Nonnull final byte[] source,
+      @Nonnull final WritableByteChannel out) throws IOException {
+    write(binary(info), false, source, out);
+  }
+
+  /**
+   * Like {@link #apply(DiffInfo, byte[], WritableByteChannel)} the other way,
+   * writes source of the diff.
+   *
+   * @param info   diff of byte sequences
+   * @param target array equal to target of the diff
+   * @param out    channel receiving source of the diff
+   * @throws IOException if channel fails
+   */
+  public void reverse(@Nonnull final DiffInfo info, @Nonnull final byte[] target,
+      @Nonnull final WritableByteChannel out) throws IOException {
+    write(binary(info), true, target, out);
+  }
+
+  /**
+   * Turns {@code buffer[position, limit)}, equal to source of the diff, into
+   * its target without second buffer. Capacity must fit the target, limit is
+   * set to its end.
+   *
+   * <p>Matched ranges moving left are moved first in ascending order, then
+   * the ones moving right in descending order, so no range is overwritten
+   * before it is moved. Inserted and replaced ranges are put last. Moved
+   * and copied ranges of block matching can swap or repeat parts of the
+   * buffer, which takes a second buffer, so such diffs are rejected, see
+   * {@link #apply(DiffInfo, byte[], WritableByteChannel)}.
+   *
+   * @param info   diff of byte sequences
+   * @param buffer buffer holding source of the diff
+   * @throws IllegalArgumentException if diff has moved or copied ranges
+   */
+  public void applyInPlace(@Nonnull final DiffInfo info,
+      @Nonnull final ByteBuffer buffer) {
+    patchInPlace(binary(info), false, buffer);
+  }
+
+  /**
+   * Like {@link #applyInPlace(DiffInfo, ByteBuffer)} the other way, turns
+   * target of the diff into its source.
+   *
+   * @param info   diff of byte sequences
+   * @param buffer buffer holding target of the diff
+   * @throws IllegalArgumentException if diff has moved or copied ranges
+   */
+  public void reverseInPlace(@Nonnull final DiffInfo info,
+      @Nonnull final ByteBuffer buffer) {
+    patchInPlace(binary(info), true, buffer);
+  }
+
+  /**
+   * Applies diff of chars to a copy of its source.
+   *
+   * @param info   diff of chars
+   * @param source array equal to source of the diff
+   * @return target of the diff
+   */
+  public char[] apply(@Nonnull final DiffInfo info,
+      @Nonnull final char[] source) {
+    return copy(text(info), false, source);
+  }
+
+  /**
+   * Recovers source of a diff of chars from a copy of its target.
+   *
+   * @param info   diff of chars
+   * @param target array equal to target of the diff
+   * @return source of the diff
+   */
+  public char[] reverse(@Nonnull final DiffInfo info,
+      @Nonnull final char[] target) {
+    return copy(text(info), true, target);
+  }
+
+  private DiffInfo binary(@Nonnull final DiffInfo info) {
+    if (!info.getSourceSequence().isBinary()
+        || !info.getTargetSequence().isBinary()) {
+      throw new IllegalArgumentException("Diff of bytes expected, got "
+          + info.getSourceSequence().getClass().getSimpleName());
+    }
+    return info;
+  }
+
+  private DiffInfo text(@Nonnull final DiffInfo info) {
+    if (!info.getSourceSequence().isText()) {
+      throw new IllegalArgumentException("Diff of chars expected, got "
+          + info.getSourceSequence().getClass().getSimpleName());
+    }
+    return info;
+  }
+
+  private void checkLength(@Nonnull final Sequence expected,
+      final int length) {
+    if (expected.length() != length) {
+      throw new IllegalArgumentException("Diff is made for input of "
+          + expected.length() + " elements, got " + length);
+    }
+  }
+
+  private void copy(@Nonnull final DiffInfo info, final boolean reverse,
+      @Nonnull final ByteBuffer in, @Nonnull final ByteBuffer out) {
+    final Sequence base = reverse ? info.getTargetSequence()
+        : info.getSourceSequence();
+    final Sequence result = reverse ? info.getSourceSequence()
+        : info.getTargetSequence();
+    checkLength(base, in.remaining());
+    if (out.remaining() < result.length()) {
+      throw new IllegalArgumentException("Output has room for "
+          + out.remaining() + " bytes, " + result.length() + " needed");
+    }
+
+    final ByteBuffer from = in.duplicate();
+    final int origin = in.position();
+    walk(info, reverse, new RangeSink() {
+      @Override
+      public void base(final int start, final int length) {
+        from.limit(origin + start + length).position(origin + start);
+        out.put(from);
+      }
+
+      @Override
+      public void payload(final Sequence payload, final int start,
+          final int end) {
+        put(out, payload, start, end);
+      }
+    });
+  }
+
+  private void write(@Nonnull final DiffInfo info, final boolean reverse,
+      @Nonnull final byte[] in, @Nonnull final WritableByteChannel out)
+      throws IOException {
+    checkLength(reverse ? info.getTargetSequence() : info.getSourceSequence(),
+        in.length);
+    final ByteBuffer chunk = ByteBuffer.allocate(BUFFER);
+    try {
+      walk(info, reverse, new RangeSink() {
+        @Override
+        public void base(final int start, final int length) {
+          drain(chunk, out);
+          writeFully(ByteBuffer.wrap(in, start, length), out);
+        }
+
+        @Override
+        public void payload(final Sequence payload, final int start,
+            final int end) {
+          for (int i = start; i < end; ) {
+            if (!chunk.hasRemaining()) {
+              drain(chunk, out);
+            }
+            final int n = Math.min(end - i, chunk.remaining());
+            put(chunk, payload, i, i + n);
+            i += n;
+          }
+        }
+      });
+      drain(chunk, out);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void drain(@Nonnull final ByteBuffer chunk,
+      @Nonnull final WritableByteChannel out) {
+    chunk.flip();
+    writeFully(chunk, out);
+    chunk.clear();
+  }
+
+  private void writeFully(@Nonnull final ByteBuffer buffer,
+      @Nonnull final WritableByteChannel out) {
+    try {
+      while (buffer.hasRemaining()) {
+        out.write(buffer);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void patchInPlace(@Nonnull final DiffInfo info,
+      final boolean reverse, @Nonnull final ByteBuffer buffer) {
+    final Sequence base = reverse ? info.getTargetSequence()
+        : info.getSourceSequence();
+    final Sequence result = reverse ? info.getSourceSequence()
+        : info.getTargetSequence();
+    checkLength(base, buffer.remaining());
+    if (hasBlocks(info)) {
+      throw new IllegalArgumentException(
+          "Moved and copied ranges can't be patched in place");
+    }
+    final int origin = buffer.position();
+    if (buffer.capacity() - origin < result.length()) {
+      throw new IllegalArgumentException("Buffer has room for "
+          + (buffer.capacity() - origin) + " bytes, " + result.length()
+          + " needed");
+    }
+    buffer.limit(origin + Math.max(base.length(), result.length()));
+
+    for (int i = 0; i < info.size(); i++) {
+      if (info.getDiffType(i) == DiffType.MATCH) {
+        final int from = reverse ? info.getTargetStart(i)
+            : info.getSourceStart(i);
+        final int to = reverse ? info.getSourceStart(i)
+            : info.getTargetStart(i);
+        if (to < from) {
+          move(buffer, origin + from, origin + to, length(info, i));
+        }
+      }
+    }
+    for (int i = info.size() - 1; i >= 0; i--) {
+      if (info.getDiffType(i) == DiffType.MATCH) {
+        final int from = reverse ? info.getTargetStart(i)
+            : info.getSourceStart(i);
+        final int to = reverse ? info.getSourceStart(i)
+            : info.getTargetStart(i);
+        if (to > from) {
+          move(buffer, origin + from, origin + to, length(info, i));
+        }
+      }
+    }
+
+    final ByteBuffer out = buffer.duplicate();
+    final Cursor range = info.cursor();
+    while (range.next()) {
+      final DiffType type = range.getDiffType();
+      if (type == DiffType.REPLACE
+          || type == (reverse ? DiffType.DELETE : DiffType.INSERT)) {
+        final int start = reverse ? range.getSourceStart()
+            : range.getTargetStart();
+        final int end = 1 + (reverse ? range.getSourceEnd()
+            : range.getTargetEnd());
+        out.position(origin + start);
+        put(out, result, start, end);
+      }
+    }
+    buffer.limit(origin + result.length());
+  }
+
+  private int length(@Nonnull final DiffInfo info, final int range) {
+    return info.getSourceEnd(range) - info.getSourceStart(range) + 1;
+  }
+
+  /**
+   * Moves {@code length} bytes from {@code from} to {@code to}, ranges may
+   * overlap.
+   */
+  private void move(@Nonnull final ByteBuffer buffer, final int from,
+      final int to, final int length) {
+    if (buffer.hasArray()) {
+      System.arraycopy(buffer.array(), buffer.arrayOffset() + from,
+          buffer.array(), buffer.arrayOffset() + to, length);
+      return;
+    }
+    final byte[] chunk = new byte[Math.min(BUFFER, length)];
+    final ByteBuffer view = buffer.duplicate();
+    for (int done = 0; done < length; ) {
+      final int n = Math.min(chunk.length, length - done);
+      final int offset = to < from ? done : length - done - n;
+      view.limit(from + offset + n).position(from + offset);
+      view.get(chunk, 0, n);
+      view.limit(to + offset + n).position(to + offset);
+      view.put(chunk, 0, n);
+      done += n;
+    }
+  }
+
+  /**
+   * Puts {@code sequence[start, end)} at position of {@code out}.
+   */
+  private void put(@Nonnull final ByteBuffer out,
+      @Nonnull final Sequence sequence, final int start, final int end) {
+    if (out.hasArray()) {
+      sequence.copyBytes(start, end, out.array(),
+          out.arrayOffset() + out.position());
+      out.position(out.position() + end - start);
+      return;
+    }
+    final byte[] chunk = new byte[Math.min(BUFFER, end - start)];
+    for (int i = start; i < end; i += chunk.length) {
+      final int n = Math.min(chunk.length, end - i);
+      sequence.copyBytes(i, i + n, chunk, 0);
+      out.put(chunk, 0, n);
+    }
+  }
+
+  private char[] copy(@Nonnull final DiffInfo info, final boolean reverse,
+      @Nonnull final char[] in) {
+    checkLength(reverse ? info.getTargetSequence() : info.getSourceSequence(),
+        in.length);
+    final Sequence result = reverse ? info.getSourceSequence()
+        : info.getTargetSequence();
+    final char[] chars = result.chars();
+    final char[] out = new char[result.length()];
+    final int[] position = {0};
+    walk(info, reverse, new RangeSink() {
+      @Override
+      public void base(final int start, final int length) {
+        System.arraycopy(in, start, out, position[0], length);
+        position[0] += length;
+      }
+
+      @Override
+      public void payload(final Sequence payload, final int start,
+          final int end) {
+        System.arraycopy(chars, start, out, position[0], end - start);
+        position[0] += end - start;
+      }
+    });
+    return out;
+  }
+
+  private boolean hasBlocks(@Nonnull final DiffInfo info) {
+    for (int i = 0; i < info.size(); i++) {
+      final DiffType type = info.getDiffType(i);
+      if (type == DiffType.MOVE || type == DiffType.COPY) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Walks ranges in order of the result. Matched, moved and copied ranges
+   * come from the given buffer, other ranges of the result from sequence of
+   * {@code DiffInfo}.
+   */
+  private void walk(@Nonnull final DiffInfo info, final boolean reverse,
+      @Nonnull final RangeSink ranges) {
+    if (reverse && hasBlocks(info)) {
+      walkBySource(info, ranges);
+      return;
+    }
+    final Sequence payload = reverse ? info.getSourceSequence()
+        : info.getTargetSequence();
+    final Cursor range = info.cursor();
+    while (range.next()) {
+      final DiffType type = range.getDiffType();
+      if (type == DiffType.MATCH || type == DiffType.MOVE
+          || type == DiffType.COPY) {
+        final int length = range.getSourceEnd() - range.getSourceStart() + 1;
+        if (length > 0) {
+          ranges.base(reverse ? range.getTargetStart()
+              : range.getSourceStart(), length);
+        }
+      } else if (type == DiffType.REPLACE
+          || type == (reverse ? DiffType.DELETE : DiffType.INSERT)) {
+        if (reverse) {
+          ranges.payload(payload, range.getSourceStart(),
+              range.getSourceEnd() + 1);
+        } else {
+          ranges.payload(payload, range.getTargetStart(),
+              range.getTargetEnd() + 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Walks ranges covering source in its order, which ranges of block
+   * matching are not in. Every source element is in exactly one matched,
+   * moved, deleted or replaced range, copied ranges are skipped.
+   */
+  private void walkBySource(@Nonnull final DiffInfo info,
+      @Nonnull final RangeSink ranges) {
+    final long[] order = new long[info.size()];
+    int size = 0;
+    for (int i = 0; i < info.size(); i++) {
+      final DiffType type = info.getDiffType(i);
+      if (type != DiffType.INSERT && type != DiffType.COPY
+          && info.getSourceEnd(i) >= info.getSourceStart(i)) {
+        order[size++] = (long) info.getSourceStart(i) << 32 | i;
+      }
+    }
+    Arrays.sort(order, 0, size);
+    for (int j = 0; j < size; j++) {
+      final int i = (int) order[j];
+      final DiffType type = info.getDiffType(i);
+      if (type == DiffType.MATCH || type == DiffType.MOVE) {
+        ranges.base(info.getTargetStart(i), length(info, i));
+      } else {
+        ranges.payload(info.getSourceSequence(), info.getSourceStart(i),
+            info.getSourceEnd(i) + 1);
+      }
+    }
+  }
+
+  /**
+   * Receives ranges of the result from {@code walk}.
+   */
+  private interface RangeSink {
+
+    void base(int start, int length);
+
+    void payload(Sequence payload, int start, int end);
+  }
+}
@@ -0,0 +1,55 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Patience diff. Elements occurring exactly once in both ranges are paired,
+ * the longest chain of pairs increasing in both sequences becomes anchors and
+ * ranges between them are compared again. Ranges without such elements are
+ * left to Meyer's algorithm.
+ */
+final class PatienceDiff extends AnchoredDiff {
+
+  static final PatienceDiff INSTANCE = new PatienceDiff();
+
+  private PatienceDiff() {
+  }
+
+  @Override
+  boolean findAnchors(@Nonnull final Sequence source, final int sourceFrom,
+      final int sourceTo, @Nonnull final Sequence target, final int targetFrom,
+      final int targetTo, @Nonnull final Anchors anchors) {
+    final ElementIndex sourceIndex = new ElementIndex(source, sourceFrom,
+        sourceTo);
+    final ElementIndex targetIndex = new ElementIndex(target, targetFrom,
+        targetTo);
+
+    int[] sourcePositions = new int[16];
+    int[] targetPositions = new int[16];
+    int count = 0;
+    for (int y = targetFrom; y < targetTo; y++) {
+      final int hash = target.hashAt(y);
+      if (targetIndex.count(targetIndex.find(hash)) != 1) {
+        continue;
+      }
+      final int group = sourceIndex.find(hash);
+      if (group == ElementIndex.NONE || sourceIndex.count(group) != 1
+          || !source.equalAt(sourceIndex.head(group), target, y)) {
+        continue;
+      }
+      if (count == sourcePositions.length) {
+        sourcePositions = Arrays.copyOf(sourcePositions, 2 * count);
+        targetPositions = Arrays.copyOf(targetPositions, 2 * count);
+      }
+      sourcePositions[count] = sourceIndex.head(group);
+      targetPositions[count] = y;
+      count++;
+    }
+
+    for (int i : ParallelDiff.increasingChain(sourcePositions, count)) {
+      anchors.add(sourcePositions[i], targetPositions[i], 1);
+    }
+    return count > 0;
+  }
+}
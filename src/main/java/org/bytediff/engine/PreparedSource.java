@@ -0,0 +1,100 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Source prepared once and compared against any number of targets, for one
+ * baseline checked against many candidates. Source is copied a single time
+ * and with block matching, see {@code DiffOptions.withBlockSize}, its blocks
+ * are indexed up front, so each comparison costs time linear in the target
+ * plus the search of gaps between blocks, whatever the size of the source.
+ *
+ * <p>Prepared source is never changed by comparisons and can be used by many
+ * threads at once. Options are copied when source is prepared, later
+ * changes of them don't apply.
+ */
+public final class PreparedSource {
+
+  private final Sequence source;
+
+  private final DiffOptions options;
+
+  private final int blockSize;
+
+  private final KGramIndex blocks;
+
+  private PreparedSource(@Nonnull final Sequence source,
+      @Nonnull final DiffOptions options) {
+    this.source = source;
+    this.options = options.copy();
+    this.blockSize = options.blockSize();
+    this.blocks = blockSize > 0 ? BlockDiff.index(source, blockSize) : null;
+  }
+
+  public static PreparedSource of(@Nonnull final char[] source,
+      @Nonnull final DiffOptions options) {
+    return new PreparedSource(options.zeroCopy() ? Sequence.wrap(source)
+        : Sequence.of(source), options);
+  }
+
+  public static PreparedSource of(@Nonnull final byte[] source,
+      @Nonnull final DiffOptions options) {
+    return new PreparedSource(options.zeroCopy() ? Sequence.wrap(source)
+        : Sequence.of(source), options);
+  }
+
+  /**
+   * @param source  sequence compared against targets, not copied
+   * @param options algorithm, limits and block size of comparisons
+   * @return prepared source
+   */
+  public static PreparedSource of(@Nonnull final Sequence source,
+      @Nonnull final DiffOptions options) {
+    return new PreparedSource(source, options);
+  }
+
+  /**
+   * Like {@link Diff#compute(char[], char[], DiffOptions)} with the prepared
+   * source.
+   *
+   * @param target source of truth array
+   * @return {@code DiffInfo} sharing the prepared source
+   */
+  public DiffInfo compute(@Nonnull final char[] target) {
+    return compute(options.zeroCopy() ? Sequence.wrap(target)
+        : Sequence.of(target));
+  }
+
+  /**
+   * Like {@link Diff#compute(byte[], byte[], DiffOptions)} with the prepared
+   * source.
+   *
+   * @param target source of truth array
+   * @return {@code DiffInfo} sharing the prepared source
+   */
+  public DiffInfo compute(@Nonnull final byte[] target) {
+    return compute(options.zeroCopy() ? Sequence.wrap(target)
+        : Sequence.of(target));
+  }
+
+  /**
+   * Like {@link Diff#compute(Sequence, Sequence, DiffOptions)} with the
+   * prepared source.
+   *
+   * @param target source of truth sequence of the same kind as source
+   * @return {@code DiffInfo} sharing the prepared source
+   * @throws IllegalArgumentException if sequences are of different kinds
+   */
+  public DiffInfo compute(@Nonnull final Sequence target) {
+    if (source.getClass() != target.getClass()) {
+      throw new IllegalArgumentException("Sequences of different kinds: "
+          + source.getClass().getSimpleName() + ", "
+          + target.getClass().getSimpleName());
+    }
+    return Diff.compute(source, blocks, target, options, blockSize);
+  }
+
+  public Sequence getSource() {
+    return source;
+  }
+}
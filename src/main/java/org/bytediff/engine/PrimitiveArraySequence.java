@@ -0,0 +1,67 @@
+package org.bytediff.engine;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Sequence backed by a primitive array. Common runs are found in bulk by
+ * {@code Arrays.mismatch} of the backing arrays, subclasses only tell which
+ * overload to call.
+ */
+abstract class PrimitiveArraySequence extends Sequence {
+
+  PrimitiveArraySequence() {
+  }
+
+  /**
+   * Like {@code Arrays.mismatch} of {@code this[from, to)} and {@code
+   * other[otherFrom, otherTo)}.
+   *
+   * @param other sequence of the same kind
+   * @return relative index of the first mismatch, -1 if ranges are equal
+   */
+  abstract int mismatch(int from, int to, @Nonnull Sequence other,
+      int otherFrom, int otherTo);
+
+  @Override
+  abstract boolean equalAt(int index, @Nonnull Sequence other,
+      int otherIndex);
+
+  @Override
+  final int commonPrefix(final int from, final int to,
+      @Nonnull final Sequence other, final int otherFrom, final int otherTo) {
+    if (from >= to || otherFrom >= otherTo
+        || !equalAt(from, other, otherFrom)) {
+      return 0;
+    }
+    final int common = mismatch(from, to, other, otherFrom, otherTo);
+    return common < 0 ? to - from : common;
+  }
+
+  @Override
+  final int commonSuffix(final int from, final int to,
+      @Nonnull final Sequence other, final int otherFrom, final int otherTo) {
+    final int max = Math.min(to - from, otherTo - otherFrom);
+
+    int suffix = 0;
+    while (suffix < max && suffix < SCALAR_SUFFIX
+        && equalAt(to - suffix - 1, other, otherTo - suffix - 1)) {
+      suffix++;
+    }
+    if (suffix < SCALAR_SUFFIX) {
+      return suffix;
+    }
+    while (suffix < max) {
+      final int block = Math.min(SUFFIX_BLOCK, max - suffix);
+      if (mismatch(to - suffix - block, to - suffix,
+          other, otherTo - suffix - block, otherTo - suffix) == -1) {
+        suffix += block;
+        continue;
+      }
+      while (equalAt(to - suffix - 1, other, otherTo - suffix - 1)) {
+        suffix++;
+      }
+      break;
+    }
+    return suffix;
+  }
+}
@@ -0,0 +1,14 @@
+package org.bytediff.engine;
+
+import org.bytediff.engine.DiffInfo.DiffType;
+
+/**
+ * Receives ranges as they are computed from edit script. Ends are inclusive,
+ * like in {@code DiffInfo.Diff}.
+ */
+@FunctionalInterface
+interface RangeConsumer {
+
+  void accept(DiffType type, int sourceStart, int sourceEnd, int targetStart,
+      int targetEnd);
+}
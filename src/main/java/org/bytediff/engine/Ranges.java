@@ -0,0 +1,75 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import org.bytediff.engine.DiffInfo.DiffType;
+
+/**
+ * Growable columns of ranges, type ordinal in one byte array and each offset
+ * in its own int array. Ends are inclusive, like in {@code DiffInfo.Diff}.
+ */
+final class Ranges implements RangeConsumer {
+
+  private static final DiffType[] TYPES = DiffType.values();
+
+  byte[] types;
+
+  int[] sourceStarts;
+
+  int[] sourceEnds;
+
+  int[] targetStarts;
+
+  int[] targetEnds;
+
+  int size;
+
+  Ranges(final int capacity) {
+    final int initial = Math.max(capacity, 4);
+    types = new byte[initial];
+    sourceStarts = new int[initial];
+    sourceEnds = new int[initial];
+    targetStarts = new int[initial];
+    targetEnds = new int[initial];
+  }
+
+  @Override
+  public void accept(final DiffType type, final int sourceStart,
+      final int sourceEnd, final int targetStart, final int targetEnd) {
+    if (size == types.length) {
+      final int capacity = 2 * size;
+      types = Arrays.copyOf(types, capacity);
+      sourceStarts = Arrays.copyOf(sourceStarts, capacity);
+      sourceEnds = Arrays.copyOf(sourceEnds, capacity);
+      targetStarts = Arrays.copyOf(targetStarts, capacity);
+      targetEnds = Arrays.copyOf(targetEnds, capacity);
+    }
+    types[size] = (byte) type.ordinal();
+    sourceStarts[size] = sourceStart;
+    sourceEnds[size] = sourceEnd;
+    targetStarts[size] = targetStart;
+    targetEnds[size] = targetEnd;
+    size++;
+  }
+
+  DiffType type(final int range) {
+    return TYPES[types[range]];
+  }
+
+  /**
+   * @return number of inserted and deleted elements, replaced ones count
+   * twice
+   */
+  long cost() {
+    long cost = 0;
+    for (int i = 0; i < size; i++) {
+      final DiffType type = type(i);
+      if (type == DiffType.INSERT || type == DiffType.REPLACE) {
+        cost += targetEnds[i] - targetStarts[i] + 1;
+      }
+      if (type == DiffType.DELETE || type == DiffType.REPLACE) {
+        cost += sourceEnds[i] - sourceStarts[i] + 1;
+      }
+    }
+    return cost;
+  }
+}
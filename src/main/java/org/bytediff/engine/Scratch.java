@@ -0,0 +1,67 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Work arrays of the greedy search kept per thread between comparisons, so
+ * many small diffs don't allocate them on every call. Arrays longer than
+ * {@code RETAINED_LIMIT} are used once and dropped, so a single big diff
+ * doesn't pin its memory to the thread.
+ *
+ * <p>Search never runs nested on the same thread, arrays given out are
+ * owned by the caller until it returns.
+ */
+final class Scratch {
+
+  static final int RETAINED_LIMIT = 1 << 16;
+
+  private static final ThreadLocal<Scratch> LOCAL =
+      ThreadLocal.withInitial(Scratch::new);
+
+  private int[] v = new int[64];
+
+  private int[] trace = new int[1024];
+
+  private Scratch() {
+  }
+
+  static Scratch get() {
+    return LOCAL.get();
+  }
+
+  /**
+   * Array of furthest reaching x, content is left from previous use.
+   */
+  int[] v(final int length) {
+    if (length <= v.length) {
+      return v;
+    }
+    final int[] array = new int[length];
+    if (length <= RETAINED_LIMIT) {
+      v = array;
+    }
+    return array;
+  }
+
+  /**
+   * Array of the trace, content is left from previous use.
+   */
+  int[] trace(final int length) {
+    if (length <= trace.length) {
+      return trace;
+    }
+    return growTrace(new int[0], length);
+  }
+
+  /**
+   * Copy of the trace with at least given length.
+   */
+  int[] growTrace(@Nonnull final int[] current, final int length) {
+    final int[] array = Arrays.copyOf(current, length);
+    if (length <= RETAINED_LIMIT) {
+      trace = array;
+    }
+    return array;
+  }
+}
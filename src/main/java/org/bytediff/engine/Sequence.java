@@ -0,0 +1,272 @@
+package org.bytediff.engine;
+
+import java.util.List;
+import javax.annotation.Nonnull;
+
+/**
+ * Read only view of compared data. Engine compares only sequences of the same
+ * kind, each implementation looks for common runs in bulk over its own
+ * primitive array, so the comparison loop stays free of virtual calls and
+ * widening copies.
+ *
+ * <p>Sequences are created by {@code Sequence.of} and compared by {@code
+ * Diff.compute(Sequence, Sequence)}. Factories {@code of} copy given data,
+ * factories {@code wrap} reference it, then it must not change while the
+ * sequence or {@code DiffInfo} built of it is in use.
+ */
+public abstract class Sequence {
+
+  /**
+   * Number of trailing elements compared one by one before switching to block
+   * comparison, most backward snakes are shorter than that.
+   */
+  static final int SCALAR_SUFFIX = 16;
+
+  /**
+   * Length of blocks compared at once when looking for common suffix.
+   */
+  static final int SUFFIX_BLOCK = 256;
+
+  Sequence() {
+  }
+
+  public static Sequence of(@Nonnull final char[] array) {
+    return new CharArraySequence(array.clone());
+  }
+
+  public static Sequence of(@Nonnull final CharSequence text) {
+    return new CharArraySequence(text.toString().toCharArray());
+  }
+
+  public static Sequence of(@Nonnull final byte[] array) {
+    return new ByteArraySequence(array.clone());
+  }
+
+  public static Sequence of(@Nonnull final int[] array) {
+    return new IntArraySequence(array.clone());
+  }
+
+  public static Sequence of(@Nonnull final long[] array) {
+    return new LongArraySequence(array.clone());
+  }
+
+  public static Sequence wrap(@Nonnull final char[] array) {
+    return new CharArraySequence(array);
+  }
+
+  public static Sequence wrap(@Nonnull final byte[] array) {
+    return new ByteArraySequence(array);
+  }
+
+  public static Sequence wrap(@Nonnull final int[] array) {
+    return new IntArraySequence(array);
+  }
+
+  public static Sequence wrap(@Nonnull final long[] array) {
+    return new LongArraySequence(array);
+  }
+
+  /**
+   * Sequence of objects, elements match when they are equivalent. Chars of
+   * such sequence are not available, strings are built of elements' {@code
+   * toString}.
+   */
+  public static <T> Sequence of(@Nonnull final T[] array,
+      @Nonnull final Equivalence<? super T> equivalence) {
+    return new ObjectSequence<>(array.clone(), equivalence);
+  }
+
+  /**
+   * Like {@link #of(Object[], Equivalence)} with elements of a list.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> Sequence of(@Nonnull final List<? extends T> list,
+      @Nonnull final Equivalence<? super T> equivalence) {
+    return new ObjectSequence<>((T[]) list.toArray(), equivalence);
+  }
+
+  /**
+   * @return number of elements
+   */
+  public abstract int length();
+
+  /**
+   * Element as a character, bytes are read as unsigned values.
+   *
+   * @param index position of element
+   * @return character
+   * @throws UnsupportedOperationException if elements have no chars, see
+   *                                       {@link #hasChars()}
+   */
+  public abstract char charAt(int index);
+
+  /**
+   * Whether elements can be read by {@link #charAt}, false for sequences of
+   * ints, longs and objects, which render their elements as strings.
+   *
+   * @return whether elements have chars
+   */
+  public boolean hasChars() {
+    return true;
+  }
+
+  /**
+   * Elements {@code [from, to)} as string of characters.
+   *
+   * @param from first index
+   * @param to   index after last
+   * @return string
+   */
+  public String toString(final int from, final int to) {
+    final StringBuilder sb = new StringBuilder(to - from);
+    for (int i = from; i < to; i++) {
+      sb.append(charAt(i));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Elements {@code [from, to)} as characters without copying them. View of
+   * char sequence is a read only {@code CharBuffer} over its array, other
+   * sequences widen each element on access.
+   *
+   * @param from first index
+   * @param to   index after last
+   * @return view
+   */
+  public CharSequence view(final int from, final int to) {
+    checkView(from, to);
+    return new View(this, from, to);
+  }
+
+  void checkView(final int from, final int to) {
+    if (from < 0 || from > to || to > length()) {
+      throw new IndexOutOfBoundsException(
+          "View [" + from + ", " + to + ") of " + length());
+    }
+  }
+
+  /**
+   * Hash of a single element, equal elements have equal hashes.
+   *
+   * @param index position of element
+   * @return hash
+   */
+  abstract int hashAt(int index);
+
+  /**
+   * Whether element of this sequence equals element of other one.
+   *
+   * @param other sequence of the same kind
+   */
+  boolean equalAt(final int index, @Nonnull final Sequence other,
+      final int otherIndex) {
+    return commonPrefix(index, index + 1, other, otherIndex, otherIndex + 1)
+        == 1;
+  }
+
+  /**
+   * Length of common run at the beginning of {@code this[from, to)} and
+   * {@code other[otherFrom, otherTo)}.
+   *
+   * @param other sequence of the same kind
+   */
+  abstract int commonPrefix(int from, int to, @Nonnull Sequence other,
+      int otherFrom, int otherTo);
+
+  /**
+   * Length of common run at the end of {@code this[from, to)} and {@code
+   * other[otherFrom, otherTo)}.
+   *
+   * @param other sequence of the same kind
+   */
+  abstract int commonSuffix(int from, int to, @Nonnull Sequence other,
+      int otherFrom, int otherTo);
+
+  /**
+   * Whether elements are UTF-16 chars, in which case ranges never split
+   * surrogate pairs.
+   */
+  boolean isText() {
+    return false;
+  }
+
+  /**
+   * Whether elements are bytes, which can be copied out in bulk by {@code
+   * copyBytes}.
+   */
+  boolean isBinary() {
+    return false;
+  }
+
+  /**
+   * Copies bytes {@code [from, to)} to {@code destination} starting at
+   * {@code offset}. Supported by binary sequences only.
+   */
+  void copyBytes(final int from, final int to,
+      @Nonnull final byte[] destination, final int offset) {
+    throw new UnsupportedOperationException("Elements are not bytes");
+  }
+
+  /**
+   * All elements as characters. Char arrays are returned as is, other
+   * sequences are widened.
+   *
+   * @throws UnsupportedOperationException if elements have no chars, offsets
+   *                                       of their strings wouldn't match
+   *                                       ranges
+   */
+  char[] chars() {
+    if (!hasChars()) {
+      throw new UnsupportedOperationException(
+          "Elements of " + getClass().getSimpleName() + " are not chars");
+    }
+    return toString(0, length()).toCharArray();
+  }
+
+  /**
+   * Characters of a range, read from sequence on access.
+   */
+  private static final class View implements CharSequence {
+
+    private final Sequence sequence;
+
+    private final int from;
+
+    private final int to;
+
+    View(@Nonnull final Sequence sequence, final int from, final int to) {
+      this.sequence = sequence;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public int length() {
+      return to - from;
+    }
+
+    @Override
+    public char charAt(final int index) {
+      if (index < 0 || index >= to - from) {
+        throw new IndexOutOfBoundsException(
+            "Index " + index + " of " + (to - from));
+      }
+      return sequence.charAt(from + index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+      if (start < 0 || start > end || end > to - from) {
+        throw new IndexOutOfBoundsException(
+            "View [" + start + ", " + end + ") of " + (to - from));
+      }
+      return new View(sequence, from + start, from + end);
+    }
+
+    @Override
+    public String toString() {
+      return sequence.toString(from, to);
+    }
+  }
+}
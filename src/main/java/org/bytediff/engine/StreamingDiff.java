@@ -0,0 +1,320 @@
+package org.bytediff.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import javax.annotation.Nonnull;
+import org.bytediff.engine.DiffInfo.DiffType;
+
+/**
+ * Compares two byte streams of any length with constant memory. Both streams
+ * are read into windows of fixed size which are compared with each other.
+ * Ranges are reported up to the last long enough match of the windows, which
+ * serves as an anchor, the rest is carried over and compared again with
+ * following data.
+ *
+ * <p>When windows have no anchor far enough, which happens when differences
+ * are longer than half of the window, all their ranges are reported as they
+ * are and listener is told that around this boundary result may not be
+ * minimal.
+ *
+ * <p>Windows are searched with {@code DiffOptions}, by default with maximal
+ * cost of {@code DEFAULT_MAX_COST}, so unrelated windows take time linear in
+ * their size instead of quadratic. Window whose search was cut short is
+ * reported as a boundary too. Timeout of options applies to each window,
+ * block matching and stats listener are not supported.
+ *
+ * <p>Only blocking channels are supported.
+ */
+public final class StreamingDiff {
+
+  /**
+   * Maximal cost of the search of a window unless options say otherwise.
+   */
+  public static final int DEFAULT_MAX_COST = 256;
+
+  /**
+   * Receives ranges as soon as they are known. Offsets are absolute positions
+   * in the streams, ends are inclusive like in {@code DiffInfo.Diff}.
+   */
+  public interface Listener {
+
+    void onRange(DiffType type, long sourceStart, long sourceEnd,
+        long targetStart, long targetEnd);
+
+    /**
+     * Called when windows were cut without an anchor or their search was cut
+     * short, ranges reported right before and after given offsets may be
+     * approximate.
+     *
+     * @param sourceOffset position in source stream
+     * @param targetOffset position in target stream
+     */
+    default void onBoundary(long sourceOffset, long targetOffset) {
+    }
+  }
+
+  private final ReadableByteChannel source;
+  private final ReadableByteChannel target;
+  private int windowSize;
+  private int anchorLength;
+  private DiffOptions options;
+
+  private StreamingDiff(@Nonnull final ReadableByteChannel source,
+      @Nonnull final ReadableByteChannel target) {
+    this.source = source;
+    this.target = target;
+    this.windowSize = 1 << 20;
+    this.anchorLength = 32;
+    this.options = DiffOptions.defaults().withMaxCost(DEFAULT_MAX_COST);
+  }
+
+  /**
+   * @throws IllegalArgumentException if any channel is non-blocking
+   */
+  public static StreamingDiff from(ReadableByteChannel source,
+      ReadableByteChannel target) {
+    return new StreamingDiff(blocking(source), blocking(target));
+  }
+
+  public static StreamingDiff from(InputStream source, InputStream target) {
+    return new StreamingDiff(Channels.newChannel(source),
+        Channels.newChannel(target));
+  }
+
+  public StreamingDiff withWindowSize(int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException("Window size " + value);
+    }
+    this.windowSize = value;
+    return this;
+  }
+
+  public StreamingDiff withAnchorLength(int value) {
+    if (value < 1) {
+      throw new IllegalArgumentException("Anchor length " + value);
+    }
+    this.anchorLength = value;
+    return this;
+  }
+
+  /**
+   * Algorithm and limits of the search of each window. Options are copied,
+   * later changes of them don't apply.
+   *
+   * @throws IllegalArgumentException if options turn on block matching or
+   *                                  set a stats listener, windows support
+   *                                  neither
+   */
+  public StreamingDiff withOptions(@Nonnull DiffOptions value) {
+    if (value.blockSize() > 0) {
+      throw new IllegalArgumentException(
+          "Block matching is not run over windows");
+    }
+    if (value.hasStatsListener()) {
+      throw new IllegalArgumentException(
+          "Stats are not collected over windows");
+    }
+    this.options = value.copy();
+    return this;
+  }
+
+  private static ReadableByteChannel blocking(
+      @Nonnull final ReadableByteChannel channel) {
+    if (channel instanceof SelectableChannel
+        && !((SelectableChannel) channel).isBlocking()) {
+      throw new IllegalArgumentException("Non-blocking channel");
+    }
+    return channel;
+  }
+
+  /**
+   * Reads both streams to the end, reporting ranges on the way.
+   *
+   * @param listener receiver of ranges
+   * @throws IOException when any of the streams fails
+   */
+  public void compute(@Nonnull final Listener listener) throws IOException {
+    final Window sourceWindow = new Window(source, windowSize);
+    final Window targetWindow = new Window(target, windowSize);
+    final Emitter emitter = new Emitter(listener);
+
+    while (true) {
+      sourceWindow.fill();
+      targetWindow.fill();
+      if (sourceWindow.length == 0 && targetWindow.length == 0) {
+        break;
+      }
+
+      final Budget budget = options.budget();
+      final EditScript script = options.algorithm().computeEditScript(
+          sourceWindow.sequence, 0, sourceWindow.length,
+          targetWindow.sequence, 0, targetWindow.length, budget);
+
+      final boolean last = sourceWindow.eof && targetWindow.eof
+          || sourceWindow.isDrained() || targetWindow.isDrained();
+      int cut = last ? script.size()
+          : findAnchor(script, sourceWindow.length, targetWindow.length);
+      final boolean approximate = cut < 0 || budget.isApproximated();
+      if (cut < 0) {
+        cut = script.size();
+      }
+
+      emitter.sourceBase = sourceWindow.base;
+      emitter.targetBase = targetWindow.base;
+      Diff.computeInfo(script, cut, emitter);
+
+      int x = 0;
+      int y = 0;
+      for (int i = 0; i < cut; i++) {
+        if (script.op(i) != EditScript.INSERT) {
+          x += script.length(i);
+        }
+        if (script.op(i) != EditScript.DELETE) {
+          y += script.length(i);
+        }
+      }
+      sourceWindow.consume(x);
+      targetWindow.consume(y);
+
+      if (approximate) {
+        emitter.flush();
+        listener.onBoundary(sourceWindow.base, targetWindow.base);
+      }
+    }
+    emitter.flush();
+  }
+
+  /**
+   * Finds the last match run of at least {@code anchorLength} and returns
+   * number of runs up to and including it. Anchor has to leave at least half
+   * of the windows consumed, otherwise the same data would be compared over
+   * and over.
+   *
+   * @return number of runs or -1 if there is no anchor
+   */
+  private int findAnchor(@Nonnull final EditScript script,
+      final int sourceLength, final int targetLength) {
+    int x = 0;
+    int y = 0;
+    int anchor = -1;
+    for (int i = 0; i < script.size(); i++) {
+      int op = script.op(i);
+      int length = script.length(i);
+      if (op != EditScript.INSERT) {
+        x += length;
+      }
+      if (op != EditScript.DELETE) {
+        y += length;
+      }
+      if (op == EditScript.MATCH && length >= anchorLength
+          && 2L * (x + y) >= (long) sourceLength + targetLength) {
+        anchor = i + 1;
+      }
+    }
+    return anchor;
+  }
+
+  /**
+   * Fixed size buffer holding not yet reported part of a stream.
+   */
+  private static final class Window {
+
+    private final ReadableByteChannel channel;
+    private final byte[] buffer;
+    private final Sequence sequence;
+
+    /* position of buffer[0] in the stream */
+    private long base;
+    private int length;
+    private boolean eof;
+
+    Window(@Nonnull final ReadableByteChannel channel, final int size) {
+      this.channel = channel;
+      this.buffer = new byte[size];
+      this.sequence = new ByteArraySequence(buffer);
+    }
+
+    void fill() throws IOException {
+      final ByteBuffer wrapped = ByteBuffer.wrap(buffer, length,
+          buffer.length - length);
+      while (!eof && wrapped.hasRemaining()) {
+        if (channel.read(wrapped) < 0) {
+          eof = true;
+        }
+      }
+      length = wrapped.position();
+    }
+
+    void consume(final int count) {
+      System.arraycopy(buffer, count, buffer, 0, length - count);
+      length -= count;
+      base += count;
+    }
+
+    /**
+     * Stream is read and reported to the end, whatever is left in the other
+     * one can only be inserted or deleted.
+     */
+    boolean isDrained() {
+      return eof && length == 0;
+    }
+  }
+
+  /**
+   * Shifts ranges of a window to stream offsets and joins matches split
+   * between windows.
+   */
+  private static final class Emitter implements RangeConsumer {
+
+    private final Listener listener;
+
+    private long sourceBase;
+    private long targetBase;
+
+    /* match waiting to be joined with the next one */
+    private boolean pending;
+    private long matchSource;
+    private long matchTarget;
+    private long matchLength;
+
+    Emitter(@Nonnull final Listener listener) {
+      this.listener = listener;
+    }
+
+    @Override
+    public void accept(final DiffType type, final int sourceStart,
+        final int sourceEnd, final int targetStart, final int targetEnd) {
+      final long s = sourceBase + sourceStart;
+      final long t = targetBase + targetStart;
+      if (type == DiffType.MATCH) {
+        if (pending && matchSource + matchLength == s
+            && matchTarget + matchLength == t) {
+          matchLength += sourceEnd - sourceStart + 1;
+          return;
+        }
+        flush();
+        pending = true;
+        matchSource = s;
+        matchTarget = t;
+        matchLength = sourceEnd - sourceStart + 1;
+        return;
+      }
+      flush();
+      listener.onRange(type, s, sourceBase + sourceEnd, t,
+          targetBase + targetEnd);
+    }
+
+    void flush() {
+      if (pending) {
+        pending = false;
+        listener.onRange(DiffType.MATCH, matchSource,
+            matchSource + matchLength - 1, matchTarget,
+            matchTarget + matchLength - 1);
+      }
+    }
+  }
+}
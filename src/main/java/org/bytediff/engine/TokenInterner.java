@@ -0,0 +1,132 @@
+package org.bytediff.engine;
+
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Gives equal tokens equal int ids. Tokens are kept as ranges of the texts
+ * they come from, open addressing table maps them to ids by content hash.
+ */
+final class TokenInterner {
+
+  /* per id */
+  private char[][] texts;
+
+  private int[] starts;
+
+  private int[] ends;
+
+  private int[] hashes;
+
+  /* per slot, id + 1 or 0 if free */
+  private int[] slots;
+
+  private int size;
+
+  TokenInterner() {
+    this.texts = new char[16][];
+    this.starts = new int[16];
+    this.ends = new int[16];
+    this.hashes = new int[16];
+    this.slots = new int[32];
+  }
+
+  /**
+   * Cuts text into tokens and interns them.
+   *
+   * @return ids of tokens in order
+   */
+  Tokens tokenize(@Nonnull final char[] text,
+      @Nonnull final Granularity granularity) {
+    int[] ids = new int[16];
+    int[] offsets = new int[17];
+    int count = 0;
+    for (int from = 0; from < text.length; ) {
+      final int to = granularity.tokenEnd(text, from);
+      if (count == ids.length) {
+        ids = Arrays.copyOf(ids, 2 * count);
+        offsets = Arrays.copyOf(offsets, 2 * count + 1);
+      }
+      ids[count] = intern(text, from, to);
+      offsets[++count] = to;
+      from = to;
+    }
+    return new Tokens(Arrays.copyOf(ids, count),
+        Arrays.copyOf(offsets, count + 1));
+  }
+
+  /**
+   * @return id of {@code text[from, to)}
+   */
+  int intern(@Nonnull final char[] text, final int from, final int to) {
+    int hash = 0;
+    for (int i = from; i < to; i++) {
+      hash = 31 * hash + text[i];
+    }
+
+    int mask = slots.length - 1;
+    int slot = slot(hash, mask);
+    for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+      final int id = slots[slot] - 1;
+      if (hashes[id] == hash && Arrays.equals(texts[id], starts[id], ends[id],
+          text, from, to)) {
+        return id;
+      }
+    }
+
+    if (size == texts.length) {
+      texts = Arrays.copyOf(texts, 2 * size);
+      starts = Arrays.copyOf(starts, 2 * size);
+      ends = Arrays.copyOf(ends, 2 * size);
+      hashes = Arrays.copyOf(hashes, 2 * size);
+    }
+    final int id = size++;
+    texts[id] = text;
+    starts[id] = from;
+    ends[id] = to;
+    hashes[id] = hash;
+    slots[slot] = id + 1;
+
+    if (2 * size > slots.length) {
+      slots = new int[2 * slots.length];
+      mask = slots.length - 1;
+      for (int i = 0; i < size; i++) {
+        int s = slot(hashes[i], mask);
+        while (slots[s] != 0) {
+          s = (s + 1) & mask;
+        }
+        slots[s] = i + 1;
+      }
+    }
+    return id;
+  }
+
+  private static int slot(final int hash, final int mask) {
+    final int mixed = hash * 0x9E3779B9;
+    return (mixed ^ mixed >>> 16) & mask;
+  }
+
+  /**
+   * Ids of tokens of a text with char offsets of their boundaries, token i
+   * spans {@code [offsets[i], offsets[i + 1])}.
+   */
+  static final class Tokens {
+
+    final int[] ids;
+
+    final int[] offsets;
+
+    Tokens(@Nonnull final int[] ids, @Nonnull final int[] offsets) {
+      this.ids = ids;
+      this.offsets = offsets;
+    }
+
+    /**
+     * @return number of chars of {@code count} tokens starting with {@code
+     * token}
+     */
+    int span(final int token, final int count) {
+      return offsets[token + count] - offsets[token];
+    }
+  }
+}
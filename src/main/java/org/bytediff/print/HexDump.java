@@ -0,0 +1,131 @@
+package org.bytediff.print;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import org.bytediff.engine.DiffInfo;
+import org.bytediff.engine.DiffInfo.Cursor;
+import org.bytediff.engine.Sequence;
+
+/**
+ * Renders changed ranges in rows of 16 bytes with offset, hex values and
+ * printable characters, like {@code hexdump -C}. Deleted bytes are on rows
+ * starting with '-', inserted bytes on rows starting with '+', replaced
+ * ranges have both. Moved and copied ranges take a single line starting
+ * with '&gt;' or '=', with target offset, source offset and length, all
+ * in hex. Rows are aligned to offsets, bytes of a row outside of
+ * the range are left blank. Elements are shown as bytes, chars are
+ * truncated to their low 8 bits.
+ *
+ * <p>Each row is filled in a single reusable buffer and written at once.
+ */
+final class HexDump {
+
+  static final int ROW = 16;
+
+  private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+  private static final int OFFSET_COLUMN = 1;
+
+  private static final int HEX_COLUMN = 11;
+
+  private static final int ASCII_COLUMN = 62;
+
+  private static final int LINE_LENGTH = ASCII_COLUMN + ROW + 2;
+
+  private final Appendable out;
+
+  private final char[] line = new char[LINE_LENGTH];
+
+  private final CharBuffer lineView = CharBuffer.wrap(line);
+
+  HexDump(@Nonnull Appendable out) {
+    this.out = out;
+  }
+
+  void print(@Nonnull DiffInfo diff) throws IOException {
+    Cursor range = diff.cursor();
+    while (range.next()) {
+      switch (range.getDiffType()) {
+        case DELETE:
+          rows('-', diff.getSourceSequence(), range.getSourceStart(),
+              range.getSourceEnd() + 1);
+          break;
+        case INSERT:
+          rows('+', diff.getTargetSequence(), range.getTargetStart(),
+              range.getTargetEnd() + 1);
+          break;
+        case REPLACE:
+          rows('-', diff.getSourceSequence(), range.getSourceStart(),
+              range.getSourceEnd() + 1);
+          rows('+', diff.getTargetSequence(), range.getTargetStart(),
+              range.getTargetEnd() + 1);
+          break;
+        case MOVE:
+          block('>', "moved from ", range);
+          break;
+        case COPY:
+          block('=', "copied from ", range);
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private void block(char sign, String label, Cursor range)
+      throws IOException {
+    out.append(sign);
+    hex(range.getTargetStart());
+    out.append("  ").append(label);
+    hex(range.getSourceStart());
+    out.append(", ");
+    hex(range.getSourceEnd() - range.getSourceStart() + 1);
+    out.append(" bytes\n");
+  }
+
+  private void hex(int value) throws IOException {
+    for (int digit = 0; digit < 8; digit++) {
+      out.append(DIGITS[(value >>> 4 * (7 - digit)) & 15]);
+    }
+  }
+
+  private void rows(char sign, Sequence sequence, int from, int to)
+      throws IOException {
+    for (int row = from - from % ROW; row < to; row += ROW) {
+      Arrays.fill(line, ' ');
+      line[0] = sign;
+      for (int digit = 0; digit < 8; digit++) {
+        line[OFFSET_COLUMN + digit] = DIGITS[(row >>> 4 * (7 - digit)) & 15];
+      }
+      line[ASCII_COLUMN - 1] = '|';
+      line[ASCII_COLUMN + ROW] = '|';
+      line[LINE_LENGTH - 1] = '\n';
+
+      int start = Math.max(from, row);
+      int end = Math.min(to, row + ROW);
+      for (int position = start; position < end; position++) {
+        int i = position - row;
+        int value = sequence.charAt(position) & 0xFF;
+        int column = HEX_COLUMN + 3 * i + (i >= ROW / 2 ? 1 : 0);
+        line[column] = DIGITS[value >>> 4];
+        line[column + 1] = DIGITS[value & 15];
+        line[ASCII_COLUMN + i] =
+            value >= 0x20 && value < 0x7F ? (char) value : '.';
+      }
+      write();
+    }
+  }
+
+  private void write() throws IOException {
+    if (out instanceof StringBuilder) {
+      ((StringBuilder) out).append(line);
+    } else if (out instanceof Writer) {
+      ((Writer) out).write(line);
+    } else {
+      out.append(lineView, 0, LINE_LENGTH);
+    }
+  }
+}
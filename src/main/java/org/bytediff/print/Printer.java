@@ -1,10 +1,17 @@
 package org.bytediff.print;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import javax.annotation.Nonnull;
 import org.bytediff.engine.DiffInfo;
-import org.bytediff.engine.DiffInfo.Diff;
+import org.bytediff.engine.DiffInfo.Cursor;
 import org.bytediff.engine.DiffInfo.DiffType;
+import org.bytediff.engine.Sequence;
 import org.bytediff.print.enc.Encoder;
 import org.bytediff.print.enc.IdEncoder;
 import org.bytediff.print.fmt.Formatter;
@@ -19,6 +26,7 @@ public final class Printer {
 
   private final DiffInfo diff;
   private boolean isCompact;
+  private boolean isHexDump;
   private Formatter fmt;
   private Encoder enc;
   private int contextLeft;
@@ -35,22 +43,67 @@ public final class Printer {
   }
 
   public String print() {
-    if (this.diff.getDiff().size() == 1
-        && this.diff.getDiff().get(0).getDiffType() == DiffType.MATCH) {
-      return "Identical.";
+    StringBuilder sb = new StringBuilder();
+    try {
+      print(sb);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
+    return sb.toString();
+  }
 
-    char[] source = this.diff.getSource();
-    char[] target = this.diff.getTarget();
+  /**
+   * Writes representation to the writer and flushes it.
+   *
+   * @param out writer receiving the output
+   * @throws IOException if writer fails
+   */
+  public void print(@Nonnull Writer out) throws IOException {
+    print((Appendable) out);
+    out.flush();
+  }
 
-    StringBuilder sb = new StringBuilder();
+  /**
+   * Writes representation to the channel as UTF-8. Output is buffered and
+   * flushed at the end, channel is left open. Surrogates split by context
+   * are replaced, like {@code String.getBytes} does.
+   *
+   * @param out channel receiving the output
+   * @throws IOException if channel fails
+   */
+  public void print(@Nonnull WritableByteChannel out) throws IOException {
+    print(Channels.newWriter(out, StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE), -1));
+  }
+
+  /**
+   * Writes representation to the sink range by range. Ranges are passed to
+   * formatter and encoder as views of compared data, so besides the sink
+   * memory use doesn't depend on size of the diff.
+   *
+   * @param out sink receiving the output
+   * @throws IOException if sink fails
+   */
+  public void print(@Nonnull Appendable out) throws IOException {
+    if (this.diff.isIdentical()) {
+      out.append("Identical.");
+      return;
+    }
+    if (this.isHexDump) {
+      new HexDump(out).print(this.diff);
+      return;
+    }
 
-    for (Diff diffElement : this.diff.getDiff()) {
+    Sequence source = this.diff.getSourceSequence();
+    Sequence target = this.diff.getTargetSequence();
+
+    Cursor diffElement = this.diff.cursor();
+    while (diffElement.next()) {
       if (this.isCompact) {
         int start, end;
-        char[] s;
-        if (diffElement.getDiffType() == DiffType.REPLACE
-            || diffElement.getDiffType() == DiffType.INSERT) {
+        Sequence s;
+        if (isTargetSide(diffElement.getDiffType())) {
           start = diffElement.getTargetStart();
           end = diffElement.getTargetEnd() + 1;
           s = target;
@@ -60,15 +113,17 @@ public final class Printer {
           s = source;
         }
 
-        sb.append(
-            fmt.format(
-                enc.encode(
-                    newSlice(start, end, s)),
-                diffElement.getDiffType()));
+        fmt.format(s.view(start, end), 0, end - start,
+            diffElement.getDiffType(), enc, out);
       } else {
         if (diffElement.getDiffType() == DiffType.MATCH) {
           continue;
         }
+        if (diffElement.getDiffType() == DiffType.MOVE
+            || diffElement.getDiffType() == DiffType.COPY) {
+          printBlock(diffElement, target, out);
+          continue;
+        }
 
         int start = diffElement.getSourceStart();
         int end = diffElement.getSourceEnd() + 1;
@@ -82,39 +137,66 @@ public final class Printer {
           contextLeftEnd = start;
         }
 
-        int contextRightStart = Math.min(end, source.length);
-        int contextRightEnd = Math.min(end + contextRight, source.length);
+        int contextRightStart = Math.min(end, source.length());
+        int contextRightEnd = Math.min(end + contextRight, source.length());
+
+        out.append("*> ");
+        if (contextLeftStart != contextLeftEnd) {
+          if (contextLeftStart != 0) {
+            out.append("...");
+          }
+          out.append(source.view(contextLeftStart, contextLeftEnd));
+        }
 
-        String diff;
         if (diffElement.getDiffType() == DiffType.REPLACE
             || diffElement.getDiffType() == DiffType.INSERT) {
-          diff = fmt.format(
-              enc.encode(newSlice(diffElement.getTargetStart(),
-                  diffElement.getTargetEnd() + 1, target)),
-              diffElement.getDiffType());
+          int targetStart = diffElement.getTargetStart();
+          int targetEnd = diffElement.getTargetEnd() + 1;
+          fmt.format(target.view(targetStart, targetEnd), 0,
+              targetEnd - targetStart, diffElement.getDiffType(), enc, out);
         } else {
-          diff = fmt.format(
-              enc.encode(
-                  newSlice(start, end, source)),
-              diffElement.getDiffType());
+          fmt.format(source.view(start, end), 0, end - start,
+              diffElement.getDiffType(), enc, out);
         }
 
-        String line = "*> "
-            + (contextLeftStart == contextLeftEnd
-            ? "" : (contextLeftStart == 0 ? "" : "...")
-            + newSlice(contextLeftStart, contextLeftEnd, source))
-            + diff
-            + (contextRightStart == contextRightEnd
-            ? "" : newSlice(contextRightStart, contextRightEnd, source) + "...")
-            + "\n";
-        sb.append(line);
+        if (contextRightStart != contextRightEnd) {
+          out.append(source.view(contextRightStart, contextRightEnd))
+              .append("...");
+        }
+        out.append('\n');
       }
     }
-    return sb.toString();
   }
 
-  private String newSlice(int start, int end, char[] s) {
-    return new String(Arrays.copyOfRange(s, start, end));
+  private static boolean isTargetSide(DiffType type) {
+    return type == DiffType.REPLACE || type == DiffType.INSERT
+        || type == DiffType.MOVE || type == DiffType.COPY;
+  }
+
+  /**
+   * Moved and copied ranges have no place in source, they are shown with
+   * context of target, where they end up.
+   */
+  private void printBlock(Cursor block, Sequence target, Appendable out)
+      throws IOException {
+    int start = block.getTargetStart();
+    int end = block.getTargetEnd() + 1;
+    int contextLeftStart = Math.max(0, start - this.contextLeft);
+    int contextRightEnd = Math.min(end + this.contextRight, target.length());
+
+    out.append("*> ");
+    if (contextLeftStart != start) {
+      if (contextLeftStart != 0) {
+        out.append("...");
+      }
+      out.append(target.view(contextLeftStart, start));
+    }
+    fmt.format(target.view(start, end), 0, end - start, block.getDiffType(),
+        enc, out);
+    if (end != contextRightEnd) {
+      out.append(target.view(end, contextRightEnd)).append("...");
+    }
+    out.append('\n');
   }
 
   public static Printer from(DiffInfo info) {
@@ -126,6 +208,23 @@ public final class Printer {
     return this;
   }
 
+  /**
+   * Renders changed bytes in rows of 16 with offsets, hex values and
+   * printable characters. Formatter, encoder and context are not used.
+   *
+   * @throws IllegalArgumentException if elements of the diff have no bytes,
+   *                                  like sequences of objects
+   */
+  public Printer hexDump() {
+    if (!this.diff.getSourceSequence().hasChars()
+        || !this.diff.getTargetSequence().hasChars()) {
+      throw new IllegalArgumentException(
+          "Hex dump of sequence without chars");
+    }
+    this.isHexDump = true;
+    return this;
+  }
+
   public Printer withLeftContext(int value) {
     this.contextLeft = value;
     return this;
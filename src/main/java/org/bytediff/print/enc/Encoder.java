@@ -1,6 +1,23 @@
 package org.bytediff.print.enc;
 
+import java.io.IOException;
+
 public interface Encoder {
 
   String encode(String value);
+
+  /**
+   * Writes encoded {@code value[from, to)} to the sink. By default the range
+   * is encoded as a string, implementations can write it piece by piece.
+   *
+   * @param value chars to encode
+   * @param from  first index
+   * @param to    index after last
+   * @param out   sink
+   * @throws IOException if sink fails
+   */
+  default void encode(CharSequence value, int from, int to, Appendable out)
+      throws IOException {
+    out.append(encode(value.subSequence(from, to).toString()));
+  }
 }
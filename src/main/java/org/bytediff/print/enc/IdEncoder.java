@@ -1,9 +1,25 @@
 package org.bytediff.print.enc;
 
+import java.io.IOException;
+
 public class IdEncoder implements Encoder {
 
+  /**
+   * Long ranges are appended in pieces of this size, so sinks converting
+   * them to strings don't copy whole range at once.
+   */
+  private static final int CHUNK = 8192;
+
   @Override
   public String encode(String value) {
     return value;
   }
+
+  @Override
+  public void encode(CharSequence value, int from, int to, Appendable out)
+      throws IOException {
+    for (int i = from; i < to; i += CHUNK) {
+      out.append(value, i, Math.min(to, i + CHUNK));
+    }
+  }
 }
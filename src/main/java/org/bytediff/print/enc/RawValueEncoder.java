@@ -1,20 +1,73 @@
 package org.bytediff.print.enc;
 
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Writes each code point as backslash, its value in given radix and space.
+ * Values of all 256 bytes are looked up in a table shared by encoders of the
+ * same radix, so bytes are encoded without allocation.
+ */
 public class RawValueEncoder implements Encoder {
 
+  private static final AtomicReferenceArray<String[]> TABLES =
+      new AtomicReferenceArray<>(Character.MAX_RADIX + 1);
+
   private int radix;
 
+  private final String[] table;
+
   public RawValueEncoder(int radix) {
     this.radix = radix;
+    this.table = table(radix);
   }
 
   @Override
   public String encode(String value) {
-    return value
-        .codePoints()
-        .mapToObj(i -> "\\" + Integer.toString(i, radix) + " ")
-        .collect(Collectors.joining());
+    StringBuilder sb = new StringBuilder(4 * value.length());
+    try {
+      encode(value, 0, value.length(), sb);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public void encode(CharSequence value, int from, int to, Appendable out)
+      throws IOException {
+    for (int i = from; i < to; ) {
+      char c = value.charAt(i);
+      if (c < table.length) {
+        out.append(table[c]);
+        i++;
+        continue;
+      }
+      int codePoint = c;
+      if (Character.isHighSurrogate(c) && i + 1 < to
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+      }
+      out.append('\\').append(Integer.toString(codePoint, radix)).append(' ');
+      i += Character.charCount(codePoint);
+    }
+  }
+
+  /**
+   * Encoded values of bytes, built on first use of a radix. Racing threads
+   * may build the same table twice, either copy is valid.
+   */
+  private static String[] table(int radix) {
+    int index = radix >= Character.MIN_RADIX && radix <= Character.MAX_RADIX
+        ? radix : 10;
+    String[] table = TABLES.get(index);
+    if (table == null) {
+      table = new String[256];
+      for (int i = 0; i < table.length; i++) {
+        table[i] = "\\" + Integer.toString(i, radix) + " ";
+      }
+      TABLES.set(index, table);
+    }
+    return table;
   }
 }
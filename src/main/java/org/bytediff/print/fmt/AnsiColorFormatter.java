@@ -1,7 +1,9 @@
 package org.bytediff.print.fmt;
 
+import java.io.IOException;
 import java.util.EnumMap;
 import org.bytediff.engine.DiffInfo.DiffType;
+import org.bytediff.print.enc.Encoder;
 
 public class AnsiColorFormatter implements Formatter {
 
@@ -52,6 +54,12 @@ public class AnsiColorFormatter implements Formatter {
 
     bgColor.put(DiffType.REPLACE, BackgroundColor.YELLOW);
     fgColor.put(DiffType.REPLACE, ForegroundColor.BLACK);
+
+    bgColor.put(DiffType.MOVE, BackgroundColor.BLUE);
+    fgColor.put(DiffType.MOVE, ForegroundColor.BLACK);
+
+    bgColor.put(DiffType.COPY, BackgroundColor.CYAN);
+    fgColor.put(DiffType.COPY, ForegroundColor.BLACK);
   }
 
   public AnsiColorFormatter withInsertionColors(ForegroundColor fgColor, BackgroundColor bgColor) {
@@ -73,11 +81,33 @@ public class AnsiColorFormatter implements Formatter {
     return this;
   }
 
+  public AnsiColorFormatter withMoveColors(ForegroundColor fgColor,
+      BackgroundColor bgColor) {
+    this.fgColor.put(DiffType.MOVE, fgColor);
+    this.bgColor.put(DiffType.MOVE, bgColor);
+    return this;
+  }
+
+  public AnsiColorFormatter withCopyColors(ForegroundColor fgColor,
+      BackgroundColor bgColor) {
+    this.fgColor.put(DiffType.COPY, fgColor);
+    this.bgColor.put(DiffType.COPY, bgColor);
+    return this;
+  }
+
   @Override
   public String format(String value, DiffType type) {
     return ansiColor(type) + value + ansiResetColor();
   }
 
+  @Override
+  public void format(CharSequence value, int from, int to, DiffType type,
+      Encoder encoder, Appendable out) throws IOException {
+    out.append(ansiColor(type));
+    encoder.encode(value, from, to, out);
+    out.append(ansiResetColor());
+  }
+
   private String ansiColor(DiffType type) {
     ForegroundColor fgColor = this.fgColor.get(type);
     BackgroundColor bgColor = this.bgColor.get(type);
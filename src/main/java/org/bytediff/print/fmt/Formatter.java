@@ -1,8 +1,31 @@
 package org.bytediff.print.fmt;
 
+import java.io.IOException;
 import org.bytediff.engine.DiffInfo.DiffType;
+import org.bytediff.print.enc.Encoder;
 
 public interface Formatter {
 
   String format(String value, DiffType type);
+
+  /**
+   * Writes {@code value[from, to)}, encoded by given encoder, formatted as a
+   * range of given type to the sink. By default the range is encoded and
+   * formatted as a string, implementations can write decoration around
+   * encoder output instead.
+   *
+   * @param value   chars of the range
+   * @param from    first index
+   * @param to      index after last
+   * @param type    type of the range
+   * @param encoder encoder of chars
+   * @param out     sink
+   * @throws IOException if sink fails
+   */
+  default void format(CharSequence value, int from, int to, DiffType type,
+      Encoder encoder, Appendable out) throws IOException {
+    StringBuilder encoded = new StringBuilder();
+    encoder.encode(value, from, to, encoded);
+    out.append(format(encoded.toString(), type));
+  }
 }
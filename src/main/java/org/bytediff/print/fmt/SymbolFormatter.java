@@ -1,20 +1,42 @@
 package org.bytediff.print.fmt;
 
+import java.io.IOException;
 import org.bytediff.engine.DiffInfo.DiffType;
+import org.bytediff.print.enc.Encoder;
 
 public class SymbolFormatter implements Formatter {
 
   @Override
   public String format(String value, DiffType type) {
+    String prefix = prefix(type);
+    return prefix.isEmpty() ? value : prefix + value + "]";
+  }
+
+  @Override
+  public void format(CharSequence value, int from, int to, DiffType type,
+      Encoder encoder, Appendable out) throws IOException {
+    String prefix = prefix(type);
+    out.append(prefix);
+    encoder.encode(value, from, to, out);
+    if (!prefix.isEmpty()) {
+      out.append(']');
+    }
+  }
+
+  private String prefix(DiffType type) {
     switch (type) {
       case INSERT:
-        return "++[" + value + "]";
+        return "++[";
       case DELETE:
-        return "--[" + value + "]";
+        return "--[";
       case REPLACE:
-        return "~~[" + value + "]";
+        return "~~[";
+      case MOVE:
+        return ">>[";
+      case COPY:
+        return "==[";
       default:
-        return value;
+        return "";
     }
   }
 
@@ -1,70 +1,83 @@
 package org.bytediff.util;
 
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import org.bytediff.engine.Diff;
+import org.bytediff.engine.DiffCache;
 import org.bytediff.engine.DiffInfo;
-import org.bytediff.engine.DiffInfo.DiffType;
 import org.bytediff.print.Printer;
 import org.bytediff.print.enc.RawValueEncoder;
 import org.bytediff.print.fmt.AnsiColorFormatter;
 
 public class DiffyShortcuts {
 
+  private static volatile DiffCache cache;
+
+  /**
+   * Makes shortcuts look up diffs in given cache first.
+   *
+   * @param value cache shared by all shortcuts, null to compute every diff
+   */
+  public static void useCache(DiffCache value) {
+    cache = value;
+  }
+
   public static void log(String source, String target) {
-    DiffInfo info = Diff.compute(source.toCharArray(), target.toCharArray());
+    DiffInfo info = compute(source.toCharArray(), target.toCharArray());
     Printer p = Printer.from(info);
-    System.out.println(p.print());
+    log(p);
   }
 
   public static void logVerbose(String source, String target) {
-    DiffInfo info = Diff.compute(source.toCharArray(), target.toCharArray());
+    DiffInfo info = compute(source.toCharArray(), target.toCharArray());
     Printer p = Printer.from(info).verbose();
-    System.out.println(p.print());
+    log(p);
   }
 
   public static void logColors(String source, String target) {
-    DiffInfo info = Diff.compute(source.toCharArray(), target.toCharArray());
+    DiffInfo info = compute(source.toCharArray(), target.toCharArray());
     Printer p = Printer.from(info).withFormatter(new AnsiColorFormatter());
-    System.out.println(p.print());
+    log(p);
   }
 
   public static void log(byte[] source, byte[] target, int radix) {
-    char[] sourceC = Raw.bytesToChars(source);
-    char[] targetC = Raw.bytesToChars(target);
-
-    DiffInfo info = Diff.compute(sourceC, targetC);
+    DiffInfo info = compute(source, target);
     Printer p = Printer.from(info).withEncoding(new RawValueEncoder(radix));
-    System.out.println(p.print());
+    log(p);
   }
 
   public static void logVerbose(byte[] source, byte[] target, int radix) {
-    char[] sourceC = Raw.bytesToChars(source);
-    char[] targetC = Raw.bytesToChars(target);
-
-    DiffInfo info = Diff.compute(sourceC, targetC);
+    DiffInfo info = compute(source, target);
     Printer p = Printer.from(info)
         .withEncoding(new RawValueEncoder(radix))
         .verbose();
-    System.out.println(p.print());
+    log(p);
   }
 
-  public static void logColor(byte[] source, byte[] target, int radix) {
-    char[] sourceC = Raw.bytesToChars(source);
-    char[] targetC = Raw.bytesToChars(target);
+  public static void logHexDump(byte[] source, byte[] target) {
+    DiffInfo info = compute(source, target);
+    Printer p = Printer.from(info).hexDump();
+    log(p);
+  }
 
-    DiffInfo info = Diff.compute(sourceC, targetC);
+  public static void logColor(byte[] source, byte[] target, int radix) {
+    DiffInfo info = compute(source, target);
     Printer p = Printer.from(info)
         .withEncoding(new RawValueEncoder(radix))
         .withFormatter(new AnsiColorFormatter())
         .verbose();
-    System.out.println(p.print());
+    log(p);
   }
 
   public static void assertEquals(String source, String target) {
-    DiffInfo info = Diff.compute(source.toCharArray(), target.toCharArray());
+    DiffInfo info = compute(source.toCharArray(), target.toCharArray());
 
-    if (info.getDiff().size() == 1
-        && info.getDiff().get(0).getDiffType() == DiffType.MATCH) {
+    if (info.isIdentical()) {
       return;
     }
 
@@ -73,12 +86,9 @@ public class DiffyShortcuts {
   }
 
   public static void assertEquals(byte[] source, byte[] target, int radix) {
-    char[] sourceC = Raw.bytesToChars(source);
-    char[] targetC = Raw.bytesToChars(target);
-    DiffInfo info = Diff.compute(sourceC, targetC);
+    DiffInfo info = compute(source, target);
 
-    if (info.getDiff().size() == 1
-        && info.getDiff().get(0).getDiffType() == DiffType.MATCH) {
+    if (info.isIdentical()) {
       return;
     }
 
@@ -86,4 +96,32 @@ public class DiffyShortcuts {
         .withEncoding(new RawValueEncoder(radix));
     throw new AssertionError("Diffy match failed\n" + p.print());
   }
+
+  /**
+   * Streams rendering to standard output through a buffer, without building
+   * it as a string first.
+   */
+  private static void log(Printer p) {
+    Writer out = new BufferedWriter(
+        new OutputStreamWriter(System.out, Charset.defaultCharset()));
+    try {
+      p.print((Appendable) out);
+      out.write(System.lineSeparator());
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static DiffInfo compute(char[] source, char[] target) {
+    DiffCache current = cache;
+    return current == null ? Diff.compute(source, target)
+        : current.compute(source, target);
+  }
+
+  private static DiffInfo compute(byte[] source, byte[] target) {
+    DiffCache current = cache;
+    return current == null ? Diff.compute(source, target)
+        : current.compute(source, target);
+  }
 }
@@ -1,18 +1,19 @@
 package org.bytediff.util;
 
-import org.bytediff.engine.IdCharset;
-
-import java.nio.ByteBuffer;
-import java.nio.charset.CharacterCodingException;
-
 public class Raw {
 
+  /**
+   * Widens every byte to a char. Kept for comparing bytes as chars, {@code
+   * Diff.compute(byte[], byte[])} compares them without the copy.
+   *
+   * @param arr bytes
+   * @return chars of the same length
+   */
   public static char[] bytesToChars(byte[] arr) {
-    IdCharset id = new IdCharset();
-    try {
-      return id.newDecoder().decode(ByteBuffer.wrap(arr)).array();
-    } catch (CharacterCodingException e) {
-      throw new RuntimeException("Unable to id encode byte[] to char[]", e);
+    char[] chars = new char[arr.length];
+    for (int i = 0; i < arr.length; i++) {
+      chars[i] = (char) arr[i];
     }
+    return chars;
   }
 }
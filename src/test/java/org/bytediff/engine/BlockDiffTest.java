@@ -0,0 +1,171 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+import org.bytediff.engine.DiffInfo.DiffType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BlockDiffTest {
+
+  @Test
+  public void relocated_block_is_moved() throws IOException {
+    Random random = new Random(3);
+    byte[] a = randomBytes(random, 4096);
+    byte[] x = randomBytes(random, 4096);
+    byte[] b = randomBytes(random, 8192);
+    byte[] c = randomBytes(random, 4096);
+    byte[] source = concat(a, x, b, c);
+    byte[] target = concat(a, b, x, c);
+
+    DiffInfo info = Diff.compute(source, target, DiffOptions.defaults().withBlockSize(32));
+
+    Assertions.assertEquals(4, info.size());
+    Assertions.assertEquals(DiffType.MATCH, info.getDiffType(0));
+    Assertions.assertEquals(DiffType.MATCH, info.getDiffType(1));
+    Assertions.assertEquals(DiffType.MOVE, info.getDiffType(2));
+    Assertions.assertEquals(4096, info.getSourceStart(2));
+    Assertions.assertEquals(12288, info.getTargetStart(2));
+    Assertions.assertEquals(8191, info.getSourceEnd(2));
+    Assertions.assertEquals(DiffType.MATCH, info.getDiffType(3));
+    assertPatches(info, source, target);
+  }
+
+  @Test
+  public void repeated_block_is_copied() throws IOException {
+    Random random = new Random(5);
+    byte[] a = randomBytes(random, 1000);
+    byte[] b = randomBytes(random, 1000);
+    byte[] source = concat(a, b);
+    byte[] target = concat(a, b, a);
+
+    DiffInfo info = Diff.compute(source, target, DiffOptions.defaults().withBlockSize(16));
+
+    Assertions.assertEquals(2, info.size());
+    Assertions.assertEquals(DiffType.MATCH, info.getDiffType(0));
+    Assertions.assertEquals(DiffType.COPY, info.getDiffType(1));
+    Assertions.assertEquals(0, info.getSourceStart(1));
+    Assertions.assertEquals(2000, info.getTargetStart(1));
+    assertPatches(info, source, target);
+  }
+
+  @Test
+  public void gaps_are_refined(){
+    char[] source = "The quick brown fox jumps over the lazy dog, twice.".toCharArray();
+    char[] target = "The quick red fox jumps over the lazy dog, twice.".toCharArray();
+
+    DiffInfo blocks = Diff.compute(source, target, DiffOptions.defaults().withBlockSize(8));
+
+    Assertions.assertEquals(DiffTest.describe(Diff.compute(source, target)), DiffTest.describe(blocks));
+    Assertions.assertArrayEquals(target, Patch.apply(blocks, source));
+  }
+
+  @Test
+  public void identical_and_short_inputs(){
+    byte[] data = randomBytes(new Random(1), 500);
+
+    Assertions.assertTrue(Diff.compute(data, data.clone(), DiffOptions.defaults().withBlockSize(64)).isIdentical());
+    Assertions.assertTrue(Diff.compute(new byte[0], new byte[0], DiffOptions.defaults().withBlockSize(64)).isIdentical());
+
+    byte[] source = {1, 2, 3};
+    byte[] target = {1, 3, 4};
+    Assertions.assertEquals(DiffTest.describe(Diff.compute(source, target)),
+        DiffTest.describe(Diff.compute(source, target, DiffOptions.defaults().withBlockSize(64))));
+  }
+
+  @Test
+  public void shuffled_blocks_random() throws IOException {
+    Random random = new Random(17);
+
+    for (int i = 0; i < 200; i++) {
+      byte[][] pieces = new byte[2 + random.nextInt(8)][];
+      for (int p = 0; p < pieces.length; p++) {
+        pieces[p] = randomString(random, random.nextInt(200), 3 + random.nextInt(20)).getBytes();
+      }
+      byte[] source = concat(pieces);
+      byte[][] shuffled = new byte[pieces.length + 2][];
+      for (int p = 0; p < shuffled.length; p++) {
+        byte[] piece = pieces[random.nextInt(pieces.length)].clone();
+        if (piece.length > 0 && random.nextBoolean()) {
+          piece[random.nextInt(piece.length)] ^= 1;
+        }
+        shuffled[p] = random.nextInt(5) == 0 ? new byte[0] : piece;
+      }
+      byte[] target = concat(shuffled);
+
+      DiffInfo info = Diff.compute(source, target, DiffOptions.defaults().withBlockSize(1 + random.nextInt(12)));
+
+      assertCovered(info);
+      assertPatches(info, source, target);
+    }
+  }
+
+  private static void assertCovered(DiffInfo info) {
+    int[] sourceCount = new int[info.getSourceSequence().length()];
+    int targetEnd = 0;
+    for (int i = 0; i < info.size(); i++) {
+      DiffType type = info.getDiffType(i);
+      if (type != DiffType.INSERT && type != DiffType.COPY) {
+        for (int s = info.getSourceStart(i); s <= info.getSourceEnd(i); s++) {
+          sourceCount[s]++;
+        }
+      }
+      if (type != DiffType.DELETE) {
+        Assertions.assertEquals(targetEnd, info.getTargetStart(i));
+        targetEnd = info.getTargetEnd(i) + 1;
+      }
+      if (type == DiffType.MATCH || type == DiffType.MOVE || type == DiffType.COPY) {
+        Assertions.assertEquals(info.getSourceView(i).toString(), info.getTargetView(i).toString());
+      }
+    }
+    Assertions.assertEquals(info.getTargetSequence().length(), targetEnd);
+    for (int count : sourceCount) {
+      Assertions.assertEquals(1, count);
+    }
+  }
+
+  private static void assertPatches(DiffInfo info, byte[] source, byte[] target) throws IOException {
+    Assertions.assertArrayEquals(target, Patch.apply(info, source));
+    Assertions.assertArrayEquals(source, Patch.reverse(info, target));
+    Assertions.assertArrayEquals(target, Delta.apply(source, Delta.encode(info)));
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    Patch.reverse(info, target, Channels.newChannel(written));
+    Assertions.assertArrayEquals(source, written.toByteArray());
+
+    ByteBuffer buffer = ByteBuffer.allocate(Math.max(source.length, target.length));
+    buffer.put(source).flip();
+    boolean blocks = false;
+    for (int i = 0; i < info.size(); i++) {
+      blocks |= info.getDiffType(i) == DiffType.MOVE || info.getDiffType(i) == DiffType.COPY;
+    }
+    if (blocks) {
+      Assertions.assertThrows(IllegalArgumentException.class, () -> Patch.applyInPlace(info, buffer));
+    } else {
+      Patch.applyInPlace(info, buffer);
+      Assertions.assertEquals(ByteBuffer.wrap(target), buffer);
+    }
+  }
+
+  private static byte[] randomBytes(Random random, int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] concat(byte[]... pieces) {
+    byte[] result = new byte[Arrays.stream(pieces).mapToInt(p -> p.length).sum()];
+    int position = 0;
+    for (byte[] piece : pieces) {
+      System.arraycopy(piece, 0, result, position, piece.length);
+      position += piece.length;
+    }
+    return result;
+  }
+}
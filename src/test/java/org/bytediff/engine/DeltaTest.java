@@ -0,0 +1,80 @@
+package org.bytediff.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DeltaTest {
+
+  @Test
+  public void round_trip_small(){
+    byte[][][] cases = {
+        {{}, {}},
+        {{}, {1, 2, 3}},
+        {{1, 2, 3}, {}},
+        {{1, 2, 3}, {1, 2, 3}},
+        {{1, 2, 3, 4, 5}, {1, 9, 3, 5, 6}},
+        {{5, 6, 7}, {1, 2, 3}}
+    };
+
+    for (byte[][] c : cases) {
+      byte[] delta = Delta.encode(Diff.compute(c[0], c[1]));
+
+      Assertions.assertArrayEquals(c[1], Delta.apply(c[0], delta));
+    }
+  }
+
+  @Test
+  public void similar_blobs_small_delta() throws IOException {
+    Random random = new Random(3);
+    byte[] source = new byte[1 << 20];
+    random.nextBytes(source);
+    byte[] target = Arrays.copyOf(source, source.length + 100);
+    for (int i = 0; i < 50; i++) {
+      target[random.nextInt(source.length)] ^= 1;
+    }
+    System.arraycopy(source, 1000, target, 500_000, 3000);
+
+    byte[] delta = Delta.encode(Diff.compute(source, target));
+
+    Assertions.assertTrue(delta.length < target.length / 100, "delta " + delta.length);
+    Assertions.assertArrayEquals(target, Delta.apply(source, delta));
+
+    ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+    Delta.apply(source, new ByteArrayInputStream(delta), streamed);
+    Assertions.assertArrayEquals(target, streamed.toByteArray());
+  }
+
+  @Test
+  public void corrupt_or_foreign_delta_rejected(){
+    byte[] source = {1, 2, 3, 4, 5, 6, 7, 8};
+    byte[] target = {1, 2, 3, 9, 5, 6, 7, 8};
+    byte[] delta = Delta.encode(Diff.compute(source, target));
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Delta.apply(Arrays.copyOf(source, 9), delta));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Delta.apply(source, Arrays.copyOf(delta, delta.length - 1)));
+
+    byte[] flipped = delta.clone();
+    flipped[flipped.length - 5] ^= 1;
+    Assertions.assertThrows(IllegalArgumentException.class, () -> Delta.apply(source, flipped));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Delta.apply(source, new ByteArrayInputStream(flipped), new ByteArrayOutputStream()));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> Delta.apply(source,
+        new ByteArrayInputStream(Arrays.copyOf(delta, delta.length - 1)), new ByteArrayOutputStream()));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> Delta.apply(Arrays.copyOf(source, 9),
+        new ByteArrayInputStream(delta), new ByteArrayOutputStream()));
+  }
+
+  @Test
+  public void chars_rejected(){
+    DiffInfo info = Diff.compute("fox".toCharArray(), "box".toCharArray());
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> Delta.encode(info));
+  }
+}
@@ -0,0 +1,86 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.apply;
+import static org.bytediff.engine.DiffTest.cost;
+import static org.bytediff.engine.DiffTest.describe;
+import static org.bytediff.engine.DiffTest.editDistance;
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class DiffAlgorithmTest {
+
+  private static final List<DiffAlgorithm> ALGORITHMS = List.of(
+      DiffAlgorithm.myers(), DiffAlgorithm.patience(), DiffAlgorithm.histogram());
+
+  @Test
+  public void random_inputs_reconstructed(){
+    Random random = new Random(23);
+
+    for (DiffAlgorithm algorithm : ALGORITHMS) {
+      for (int i = 0; i < 300; i++) {
+        String source = randomString(random, random.nextInt(60), 5);
+        String target = randomString(random, random.nextInt(60), 5);
+
+        DiffInfo diff = Diff.compute(source.toCharArray(), target.toCharArray(), algorithm);
+
+        Assertions.assertEquals(target, apply(diff));
+        Assertions.assertTrue(cost(diff) >= editDistance(source, target));
+      }
+    }
+  }
+
+  @Test
+  public void identical_and_empty(){
+    for (DiffAlgorithm algorithm : ALGORITHMS) {
+      Assertions.assertEquals("MATCH[0,-1,0,-1]",
+          describe(Diff.compute(new char[0], new char[0], algorithm)));
+      Assertions.assertEquals("MATCH[0,2,0,2]",
+          describe(Diff.compute("fox".toCharArray(), "fox".toCharArray(), algorithm)));
+    }
+  }
+
+  @Test
+  public void unique_elements_kept_together(){
+    char[] source = "xxAxxBxx".toCharArray();
+    char[] target = "xxBxxAxx".toCharArray();
+
+    Assertions.assertEquals(
+        "MATCH[0,1,0,1]REPLACE[2,2,2,2]MATCH[3,4,3,4]REPLACE[5,5,5,5]MATCH[6,7,6,7]",
+        describe(Diff.compute(source, target)));
+    Assertions.assertEquals(
+        "MATCH[0,1,0,1]INSERT[1,1,2,4]MATCH[2,2,5,5]DELETE[3,5,5,5]MATCH[6,7,6,7]",
+        describe(Diff.compute(source, target, DiffAlgorithm.patience())));
+    Assertions.assertEquals(
+        "MATCH[0,1,0,1]DELETE[2,4,1,1]MATCH[5,5,2,2]INSERT[5,5,3,5]MATCH[6,7,6,7]",
+        describe(Diff.compute(source, target, DiffAlgorithm.histogram())));
+  }
+
+  @Test
+  public void histogram_repeated_elements(){
+    StringBuilder source = new StringBuilder();
+    StringBuilder target = new StringBuilder();
+    Random random = new Random(29);
+    for (int i = 0; i < 2_000; i++) {
+      String line = "    " + randomString(random, 6, 26) + "        \n";
+      source.append(line);
+      if (i % 50 != 0) {
+        target.append(line);
+      } else {
+        target.append("    changed  \n");
+      }
+    }
+
+    DiffInfo histogram = Diff.compute(source.toString().getBytes(),
+        target.toString().getBytes(), DiffAlgorithm.histogram());
+
+    Assertions.assertEquals(target.toString(), apply(histogram));
+    Assertions.assertEquals(
+        cost(Diff.compute(source.toString().toCharArray(), target.toString().toCharArray())),
+        cost(histogram));
+  }
+}
@@ -0,0 +1,90 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.describe;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DiffCacheTest {
+
+  @Test
+  public void repeated_inputs_hit(){
+    DiffCache cache = DiffCache.withMaxBytes(1 << 20);
+
+    DiffInfo first = cache.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray());
+    DiffInfo second = cache.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray());
+    DiffInfo bytes = cache.compute("quickfox".getBytes(), "quickbrownfox".getBytes());
+    DiffInfo patience = cache.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray(),
+        DiffOptions.defaults().withAlgorithm(DiffAlgorithm.patience()));
+
+    Assertions.assertSame(first, second);
+    Assertions.assertNotSame(first, bytes);
+    Assertions.assertNotSame(first, patience);
+    Assertions.assertEquals(describe(Diff.compute("quickfox".toCharArray(),
+        "quickbrownfox".toCharArray())), describe(first));
+    Assertions.assertEquals(1, cache.getHits());
+    Assertions.assertEquals(3, cache.getMisses());
+    Assertions.assertEquals(3, cache.size());
+  }
+
+  @Test
+  public void least_recently_used_evicted(){
+    long entry = DiffCache.ENTRY_OVERHEAD + 2 * 6 + DiffCache.RANGE_BYTES * 3;
+    DiffCache cache = DiffCache.withMaxBytes(2 * entry);
+
+    cache.compute("abc".toCharArray(), "aXc".toCharArray());
+    cache.compute("abd".toCharArray(), "aXd".toCharArray());
+    cache.compute("abc".toCharArray(), "aXc".toCharArray());
+    cache.compute("abe".toCharArray(), "aXe".toCharArray());
+
+    Assertions.assertEquals(1, cache.getEvictions());
+    Assertions.assertEquals(2 * entry, cache.getBytes());
+    cache.compute("abc".toCharArray(), "aXc".toCharArray());
+    Assertions.assertEquals(2, cache.getHits());
+    cache.compute("abd".toCharArray(), "aXd".toCharArray());
+    Assertions.assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void oversized_not_cached(){
+    DiffCache cache = DiffCache.withMaxBytes(100);
+
+    cache.compute("abc".toCharArray(), "aXc".toCharArray());
+
+    Assertions.assertEquals(0, cache.size());
+    Assertions.assertEquals(0, cache.getBytes());
+  }
+
+  @Test
+  public void timed_out_not_cached(){
+    DiffCache cache = DiffCache.withMaxBytes(1 << 20);
+    DiffOptions timed = DiffOptions.defaults().withTimeout(Duration.ZERO);
+    DiffOptions bounded = DiffOptions.defaults().withMaxCost(0);
+
+    DiffInfo first = cache.compute("abcdef".toCharArray(), "abXdeYf".toCharArray(), timed);
+    DiffInfo second = cache.compute("abcdef".toCharArray(), "abXdeYf".toCharArray(), timed);
+    cache.compute("abcdef".toCharArray(), "abXdeYf".toCharArray(), bounded);
+    cache.compute("abcdef".toCharArray(), "abXdeYf".toCharArray(), bounded);
+
+    Assertions.assertFalse(first.isOptimal());
+    Assertions.assertNotSame(first, second);
+    Assertions.assertEquals(1, cache.size());
+    Assertions.assertEquals(1, cache.getHits());
+  }
+
+  @Test
+  public void hits_not_published(){
+    DiffCache cache = DiffCache.withMaxBytes(1 << 20);
+    List<DiffStats> stats = new ArrayList<>();
+    DiffOptions options = DiffOptions.defaults().withStatsListener(stats::add);
+
+    cache.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray(), options);
+    cache.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray(), options);
+
+    Assertions.assertEquals(1, cache.getHits());
+    Assertions.assertEquals(1, stats.size());
+  }
+}
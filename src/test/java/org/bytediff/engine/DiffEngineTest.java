@@ -0,0 +1,60 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.describe;
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class DiffEngineTest {
+
+  @Test
+  public void all_pairs_same_as_single_calls(){
+    Random random = new Random(23);
+    List<String[]> inputs = new ArrayList<>();
+    List<DiffEngine.Pair> pairs = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      String source = randomString(random, random.nextInt(i % 7 == 0 ? 3000 : 50), 4);
+      String target = randomString(random, random.nextInt(i % 7 == 0 ? 3000 : 50), 4);
+      inputs.add(new String[]{source, target});
+      pairs.add(DiffEngine.Pair.of(source, target));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<DiffInfo> sequential = DiffEngine.defaults().computeAll(pairs);
+      List<DiffInfo> concurrent = DiffEngine.defaults().withExecutor(executor).computeAll(pairs);
+
+      for (int i = 0; i < inputs.size(); i++) {
+        String expected = describe(Diff.compute(inputs.get(i)[0].toCharArray(),
+            inputs.get(i)[1].toCharArray()));
+        Assertions.assertEquals(expected, describe(sequential.get(i)));
+        Assertions.assertEquals(expected, describe(concurrent.get(i)));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void failure_of_pair_thrown(){
+    List<DiffEngine.Pair> pairs = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      pairs.add(i == 150 ? DiffEngine.Pair.of(Sequence.of(new int[]{1}), Sequence.of(new long[]{1}))
+          : DiffEngine.Pair.of(new byte[]{1, 2}, new byte[]{2}));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> DiffEngine.defaults().withExecutor(executor).computeAll(pairs));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
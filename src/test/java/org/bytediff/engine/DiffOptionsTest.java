@@ -0,0 +1,179 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.apply;
+import static org.bytediff.engine.DiffTest.describe;
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class DiffOptionsTest {
+
+  @Test
+  public void unbounded_optimal(){
+    DiffInfo diff = Diff.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray());
+
+    Assertions.assertTrue(diff.isOptimal());
+  }
+
+  @Test
+  public void cost_bound_not_reached(){
+    char[] source = "quickXXXXXfox".toCharArray();
+    char[] target = "quickbrownfox".toCharArray();
+
+    DiffInfo bounded = Diff.compute(source, target, DiffOptions.defaults().withMaxCost(100));
+
+    Assertions.assertTrue(bounded.isOptimal());
+    Assertions.assertEquals(describe(Diff.compute(source, target)), describe(bounded));
+  }
+
+  @Test
+  public void negative_limits_rejected(){
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> DiffOptions.defaults().withMaxCost(-5));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> DiffOptions.defaults().withTimeout(Duration.ofMillis(-1)));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> DiffOptions.defaults().withBlockSize(-1));
+
+    char[] source = "quickXXXXXfox".toCharArray();
+    char[] target = "quickbrownfox".toCharArray();
+    DiffInfo zero = Diff.compute(source, target, DiffOptions.defaults().withMaxCost(0));
+    Assertions.assertEquals(new String(target), apply(zero));
+  }
+
+  @Test
+  public void cost_bound_exceeded_unrelated(){
+    Random random = new Random(37);
+    String source = randomString(random, 200_000, 26);
+    String target = randomString(random, 200_000, 26);
+
+    for (DiffAlgorithm algorithm : new DiffAlgorithm[]{DiffAlgorithm.myers(),
+        MyersDiff.LINEAR_SPACE, DiffAlgorithm.histogram()}) {
+      DiffInfo diff = Diff.compute(source.toCharArray(), target.toCharArray(),
+          DiffOptions.defaults().withAlgorithm(algorithm).withMaxCost(64));
+
+      Assertions.assertFalse(diff.isOptimal());
+      Assertions.assertEquals(target, apply(diff));
+    }
+  }
+
+  @Test
+  public void timeout_replaces_rest(){
+    char[] source = "abcdef".toCharArray();
+    char[] target = "abXdeYf".toCharArray();
+
+    DiffInfo diff = Diff.compute(source, target, DiffOptions.defaults().withTimeout(Duration.ZERO));
+
+    Assertions.assertFalse(diff.isOptimal());
+    Assertions.assertEquals("MATCH[0,1,0,1]DELETE[2,4,1,1]INSERT[4,4,2,5]MATCH[5,5,6,6]",
+        describe(diff));
+  }
+
+  @Test
+  public void zero_copy_references_input(){
+    char[] source = "quickXXXXXfox".toCharArray();
+    char[] target = "quickbrownfox".toCharArray();
+
+    DiffInfo copied = Diff.compute(source, target);
+    DiffInfo shared = Diff.compute(source, target, DiffOptions.defaults().withZeroCopy(true));
+
+    Assertions.assertEquals(describe(copied), describe(shared));
+    Assertions.assertEquals(DiffInfo.DiffType.REPLACE, shared.getDiffType(1));
+    Assertions.assertEquals("XXXXX", shared.getSourceView(1).toString());
+    Assertions.assertEquals("brown", shared.getTargetView(1).toString());
+
+    target[5] = 'B';
+    Assertions.assertEquals('B', shared.getTargetView(1).charAt(0));
+    Assertions.assertEquals('b', copied.getTargetView(1).charAt(0));
+  }
+
+  @Test
+  public void views_of_bytes_and_inserts(){
+    DiffInfo diff = Diff.compute(new byte[]{1, 2, 3}, new byte[]{1, 2, (byte) 200, 3},
+        DiffOptions.defaults().withZeroCopy(true));
+
+    DiffInfo.Cursor cursor = diff.cursor();
+    Assertions.assertTrue(cursor.next());
+    Assertions.assertEquals("\u0001\u0002", cursor.getTargetView().toString());
+    Assertions.assertTrue(cursor.next());
+    Assertions.assertEquals(DiffInfo.DiffType.INSERT, cursor.getDiffType());
+    Assertions.assertEquals(0, cursor.getSourceView().length());
+    Assertions.assertEquals((char) 200, cursor.getTargetView().charAt(0));
+    Assertions.assertEquals(1, cursor.getTargetView().subSequence(0, 1).length());
+  }
+
+  @Test
+  public void stats_of_comparison(){
+    List<DiffStats> stats = new ArrayList<>();
+    DiffOptions options = DiffOptions.defaults().withStatsListener(stats::add);
+
+    DiffInfo diff = Diff.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray(), options);
+
+    Assertions.assertEquals(1, stats.size());
+    DiffStats last = stats.get(0);
+    Assertions.assertEquals(8, last.getSourceLength());
+    Assertions.assertEquals(13, last.getTargetLength());
+    Assertions.assertEquals(5, last.getCost());
+    Assertions.assertEquals(21, last.getDiagonals());
+    Assertions.assertEquals(0, last.getSnakeLength());
+    Assertions.assertEquals(3, last.getRuns());
+    Assertions.assertEquals(diff.size(), last.getRanges());
+    Assertions.assertTrue(last.getPeakScratchBytes() > 0);
+    Assertions.assertTrue(last.getSearchNanos() >= 0);
+
+    Diff.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray());
+    Assertions.assertEquals(1, stats.size());
+  }
+
+  @Test
+  public void stats_summed_over_pieces(){
+    Random random = new Random(41);
+    String source = randomString(random, 5_000, 4);
+    String target = randomString(random, 5_000, 4);
+    List<DiffStats> stats = new ArrayList<>();
+
+    Diff.compute(source.toCharArray(), target.toCharArray(),
+        DiffOptions.defaults().withAlgorithm(DiffAlgorithm.histogram()).withStatsListener(stats::add));
+
+    DiffStats last = stats.get(0);
+    Assertions.assertTrue(Diff.distance(source.toCharArray(), target.toCharArray()) <= last.getCost());
+    Assertions.assertTrue(last.getDiagonals() > 0);
+    Assertions.assertTrue(last.getSnakeLength() > 0);
+  }
+
+  @Test
+  public void flight_recorder_events() throws Exception {
+    Path file = Files.createTempFile("diff", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("org.bytediff.Search");
+      recording.enable("org.bytediff.Ranges");
+      recording.enable("org.bytediff.Surrogates");
+      recording.start();
+      Diff.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray());
+      recording.stop();
+      recording.dump(file);
+
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+      Assertions.assertEquals(List.of("org.bytediff.Search", "org.bytediff.Ranges", "org.bytediff.Surrogates"),
+          events.stream().map(e -> e.getEventType().getName()).collect(Collectors.toList()));
+      Assertions.assertEquals(8, events.get(0).getInt("sourceLength"));
+      Assertions.assertEquals(13, events.get(0).getInt("targetLength"));
+      Assertions.assertEquals(5, events.get(0).getLong("cost"));
+      Assertions.assertEquals(3, events.get(1).getInt("ranges"));
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
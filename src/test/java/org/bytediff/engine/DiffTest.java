@@ -2,7 +2,14 @@ package org.bytediff.engine;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import org.bytediff.engine.DiffInfo.DiffType;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -14,7 +21,7 @@ class DiffTest {
     DiffInfo diff = compute("quickfox", "quickbrownfox");
 
     Assertions.assertIterableEquals(List.of("brown"), diff.getInserts());
-    Assertions.assertIterableEquals(List.of(4), diff.getInsertIndexes());
+    Assertions.assertArrayEquals(new int[]{4}, diff.getInsertIndexes());
   }
 
   @Test
@@ -22,7 +29,7 @@ class DiffTest {
     DiffInfo diff = compute("fox", "quickfox");
 
     Assertions.assertIterableEquals(List.of("quick"), diff.getInserts());
-    Assertions.assertIterableEquals(List.of(-1), diff.getInsertIndexes());
+    Assertions.assertArrayEquals(new int[]{-1}, diff.getInsertIndexes());
   }
 
   @Test
@@ -30,7 +37,7 @@ class DiffTest {
     DiffInfo diff = compute("quick", "quickfox");
 
     Assertions.assertIterableEquals(List.of("fox"), diff.getInserts());
-    Assertions.assertIterableEquals(List.of(4), diff.getInsertIndexes());
+    Assertions.assertArrayEquals(new int[]{4}, diff.getInsertIndexes());
   }
 
   @Test
@@ -38,7 +45,7 @@ class DiffTest {
     DiffInfo diff = compute("quickbrownfox", "quickfox");
 
     Assertions.assertIterableEquals(List.of("brown"), diff.getDeletions());
-    Assertions.assertIterableEquals(List.of(5), diff.getDeletionIndexes());
+    Assertions.assertArrayEquals(new int[]{5}, diff.getDeletionIndexes());
   }
 
   @Test
@@ -46,7 +53,7 @@ class DiffTest {
     DiffInfo diff = compute("quickbrownfox", "brownfox");
 
     Assertions.assertIterableEquals(List.of("quick"), diff.getDeletions());
-    Assertions.assertIterableEquals(List.of(0), diff.getDeletionIndexes());
+    Assertions.assertArrayEquals(new int[]{0}, diff.getDeletionIndexes());
   }
 
   @Test
@@ -54,7 +61,7 @@ class DiffTest {
     DiffInfo diff = compute("quickbrownfox", "quickbrown");
 
     Assertions.assertIterableEquals(List.of("fox"), diff.getDeletions());
-    Assertions.assertIterableEquals(List.of(10), diff.getDeletionIndexes());
+    Assertions.assertArrayEquals(new int[]{10}, diff.getDeletionIndexes());
   }
 
   @Test
@@ -62,7 +69,7 @@ class DiffTest {
     DiffInfo diff = compute("quickbrownfox", "quickbrownfox");
 
     Assertions.assertIterableEquals(List.of("quickbrownfox"), diff.getMatches());
-    Assertions.assertIterableEquals(List.of(0), diff.getMatchIndexes());
+    Assertions.assertArrayEquals(new int[]{0}, diff.getMatchIndexes());
   }
 
   @Test
@@ -70,7 +77,7 @@ class DiffTest {
     DiffInfo diff = compute("brown", "quickbrownfox");
 
     Assertions.assertIterableEquals(List.of("brown"), diff.getMatches());
-    Assertions.assertIterableEquals(List.of(0), diff.getMatchIndexes());
+    Assertions.assertArrayEquals(new int[]{0}, diff.getMatchIndexes());
   }
 
   @Test
@@ -78,7 +85,7 @@ class DiffTest {
     DiffInfo diff = compute("quickbrown", "quickbrownfox");
 
     Assertions.assertIterableEquals(List.of("quickbrown"), diff.getMatches());
-    Assertions.assertIterableEquals(List.of(0), diff.getMatchIndexes());
+    Assertions.assertArrayEquals(new int[]{0}, diff.getMatchIndexes());
   }
 
   @Test
@@ -86,7 +93,7 @@ class DiffTest {
     DiffInfo diff = compute("brownfox", "quickbrownfox");
 
     Assertions.assertIterableEquals(List.of("brownfox"), diff.getMatches());
-    Assertions.assertIterableEquals(List.of(0), diff.getMatchIndexes());
+    Assertions.assertArrayEquals(new int[]{0}, diff.getMatchIndexes());
   }
 
   @Test
@@ -94,7 +101,252 @@ class DiffTest {
     DiffInfo diff = compute("quickXXXXXfox", "quickbrownfox");
 
     Assertions.assertIterableEquals(List.of("brown"), diff.getReplacements());
-    Assertions.assertIterableEquals(List.of(5), diff.getReplacementIndexes());
+    Assertions.assertArrayEquals(new int[]{5}, diff.getReplacementIndexes());
+  }
+
+  @Test
+  public void linear_space_same_cost(){
+    String[][] cases = {
+        {"quickfox", "quickbrownfox"},
+        {"fox", "quickfox"},
+        {"quickbrownfox", "quickbrown"},
+        {"quickbrownfox", "quickbrownfox"},
+        {"brownfox", "quickbrownfox"},
+        {"quickXXXXXfox", "quickbrownfox"},
+        {"a", "bbaab"}
+    };
+
+    for (String[] c : cases) {
+      DiffInfo classic = Diff.compute(c[0].toCharArray(), c[1].toCharArray(), false);
+      DiffInfo linear = Diff.compute(c[0].toCharArray(), c[1].toCharArray(), true);
+
+      Assertions.assertEquals(cost(classic), cost(linear));
+      Assertions.assertEquals(c[1], apply(linear));
+    }
+
+    Random random = new Random(11);
+    for (int i = 0; i < 3000; i++) {
+      char[] source = randomString(random, random.nextInt(60), 4).toCharArray();
+      char[] target = randomString(random, random.nextInt(60), 4).toCharArray();
+
+      Assertions.assertEquals(cost(Diff.compute(source, target, false)),
+          cost(Diff.compute(source, target, true)));
+    }
+  }
+
+  @Test
+  public void linear_space_random_minimal(){
+    Random random = new Random(7);
+
+    for (int i = 0; i < 500; i++) {
+      String source = randomString(random, random.nextInt(40), 3);
+      String target = randomString(random, random.nextInt(40), 3);
+
+      DiffInfo linear = Diff.compute(source.toCharArray(), target.toCharArray(), true);
+
+      Assertions.assertEquals(target, apply(linear));
+      Assertions.assertEquals(editDistance(source, target), cost(linear));
+    }
+  }
+
+  @Test
+  public void linear_space_above_trace_limit(){
+    char[] source = new char[3000];
+    char[] target = new char[3000];
+    Arrays.fill(source, 'a');
+    Arrays.fill(target, 'b');
+    source[0] = 'x';
+    target[0] = 'x';
+
+    DiffInfo diff = Diff.compute(source, target);
+
+    Assertions.assertEquals("MATCH[0,0,0,0]REPLACE[1,2999,1,2999]", describe(diff));
+  }
+
+  @Test
+  public void greedy_random_minimal(){
+    Random random = new Random(11);
+
+    for (int i = 0; i < 500; i++) {
+      String source = randomString(random, random.nextInt(40), 3);
+      String target = randomString(random, random.nextInt(40), 3);
+
+      DiffInfo greedy = Diff.compute(source.toCharArray(), target.toCharArray(), false);
+
+      Assertions.assertEquals(target, apply(greedy));
+      Assertions.assertEquals(editDistance(source, target), cost(greedy));
+    }
+  }
+
+  @Test
+  public void empty_inputs(){
+    Assertions.assertEquals("MATCH[0,-1,0,-1]", describe(compute("", "")));
+    Assertions.assertIterableEquals(List.of("fox"), compute("", "fox").getInserts());
+    Assertions.assertIterableEquals(List.of("fox"), compute("fox", "").getDeletions());
+  }
+
+  @Test
+  public void common_prefix_and_suffix_trimmed(){
+    char[] source = new char[10_000];
+    char[] target = new char[10_001];
+    Arrays.fill(source, 'a');
+    Arrays.fill(target, 'a');
+    target[4_000] = 'b';
+    target[4_001] = 'c';
+    source[4_000] = 'd';
+
+    DiffInfo diff = Diff.compute(source, target);
+
+    Assertions.assertEquals(
+        "MATCH[0,3999,0,3999]DELETE[4000,4000,3999,3999]INSERT[4000,4000,4000,4001]"
+            + "MATCH[4001,9999,4002,10000]",
+        describe(diff));
+  }
+
+  @Test
+  public void identical_single_match(){
+    char[] source = new char[100_000];
+    Arrays.fill(source, 'z');
+
+    DiffInfo diff = Diff.compute(source, source.clone());
+
+    Assertions.assertEquals("MATCH[0,99999,0,99999]", describe(diff));
+  }
+
+  @Test
+  public void bytes_without_widening(){
+    byte[] source = {1, 2, 3, (byte) 0xFF, 5};
+    byte[] target = {1, 2, 4, (byte) 0xFF, 5, 6};
+
+    DiffInfo diff = Diff.compute(source, target);
+
+    Assertions.assertEquals("MATCH[0,1,0,1]REPLACE[2,2,2,2]MATCH[3,4,3,4]INSERT[4,4,5,5]",
+        describe(diff));
+    Assertions.assertEquals(5, diff.getSourceSequence().length());
+    Assertions.assertEquals(0xFF, diff.getSourceSequence().charAt(3));
+    Assertions.assertIterableEquals(List.of("\u0004"), diff.getReplacements());
+  }
+
+  @Test
+  public void bytes_same_ranges_as_chars(){
+    Random random = new Random(3);
+
+    for (int i = 0; i < 200; i++) {
+      String source = randomString(random, random.nextInt(60), 4);
+      String target = randomString(random, random.nextInt(60), 4);
+
+      DiffInfo chars = compute(source, target);
+      DiffInfo bytes = Diff.compute(source.getBytes(StandardCharsets.ISO_8859_1),
+          target.getBytes(StandardCharsets.ISO_8859_1));
+
+      Assertions.assertEquals(describe(chars), describe(bytes));
+    }
+  }
+
+  @Test
+  public void mapped_files() throws IOException {
+    byte[] source = new byte[100_000];
+    new Random(5).nextBytes(source);
+    byte[] target = Arrays.copyOf(source, 100_010);
+    target[50_000] ^= 1;
+    target[70_000] ^= 1;
+
+    Path sourceFile = Files.createTempFile("diffy", ".bin");
+    Path targetFile = Files.createTempFile("diffy", ".bin");
+    sourceFile.toFile().deleteOnExit();
+    targetFile.toFile().deleteOnExit();
+    Files.write(sourceFile, source);
+    Files.write(targetFile, target);
+
+    DiffInfo mapped = Diff.compute(sourceFile, targetFile);
+
+    Assertions.assertEquals(describe(Diff.compute(source, target)), describe(mapped));
+    Assertions.assertEquals(
+        "MATCH[0,49999,0,49999]REPLACE[50000,50000,50000,50000]MATCH[50001,69999,50001,69999]"
+            + "REPLACE[70000,70000,70000,70000]MATCH[70001,99999,70001,99999]"
+            + "INSERT[99999,99999,100000,100009]",
+        describe(mapped));
+  }
+
+  @Test
+  public void cursor_and_view_agree(){
+    DiffInfo diff = compute("the quick fox jumps", "a quick brown fox");
+
+    DiffInfo.Cursor cursor = diff.cursor();
+    List<DiffInfo.Diff> view = diff.getDiff();
+    Assertions.assertEquals(diff.size(), view.size());
+    for (int i = 0; i < diff.size(); i++) {
+      Assertions.assertTrue(cursor.next());
+      DiffInfo.Diff d = view.get(i);
+      Assertions.assertEquals(d.getDiffType(), cursor.getDiffType());
+      Assertions.assertEquals(d.getSourceStart(), cursor.getSourceStart());
+      Assertions.assertEquals(d.getSourceEnd(), diff.getSourceEnd(i));
+      Assertions.assertEquals(d.getTargetStart(), diff.getTargetStart(i));
+      Assertions.assertEquals(d.getTargetEnd(), cursor.getTargetEnd());
+    }
+    Assertions.assertFalse(cursor.next());
+    Assertions.assertThrows(IndexOutOfBoundsException.class,
+        () -> diff.getDiffType(diff.size()));
+    Assertions.assertFalse(diff.isIdentical());
+    Assertions.assertTrue(compute("fox", "fox").isIdentical());
+  }
+
+  static String describe(DiffInfo info) {
+    StringBuilder sb = new StringBuilder();
+    DiffInfo.Cursor d = info.cursor();
+    while (d.next()) {
+      sb.append(d.getDiffType()).append('[')
+          .append(d.getSourceStart()).append(',').append(d.getSourceEnd()).append(',')
+          .append(d.getTargetStart()).append(',').append(d.getTargetEnd()).append(']');
+    }
+    return sb.toString();
+  }
+
+  static String apply(DiffInfo info) {
+    StringBuilder sb = new StringBuilder();
+    DiffInfo.Cursor d = info.cursor();
+    while (d.next()) {
+      if (d.getDiffType() == DiffType.MATCH) {
+        sb.append(info.getSource(), d.getSourceStart(), d.getSourceEnd() - d.getSourceStart() + 1);
+      } else if (d.getDiffType() != DiffType.DELETE) {
+        sb.append(info.getTarget(), d.getTargetStart(), d.getTargetEnd() - d.getTargetStart() + 1);
+      }
+    }
+    return sb.toString();
+  }
+
+  static int cost(DiffInfo info) {
+    int cost = 0;
+    DiffInfo.Cursor d = info.cursor();
+    while (d.next()) {
+      if (d.getDiffType() != DiffType.INSERT && d.getDiffType() != DiffType.MATCH) {
+        cost += d.getSourceEnd() - d.getSourceStart() + 1;
+      }
+      if (d.getDiffType() != DiffType.DELETE && d.getDiffType() != DiffType.MATCH) {
+        cost += d.getTargetEnd() - d.getTargetStart() + 1;
+      }
+    }
+    return cost;
+  }
+
+  static int editDistance(String source, String target) {
+    int[][] lcs = new int[source.length() + 1][target.length() + 1];
+    for (int i = 1; i <= source.length(); i++) {
+      for (int j = 1; j <= target.length(); j++) {
+        lcs[i][j] = source.charAt(i - 1) == target.charAt(j - 1)
+            ? lcs[i - 1][j - 1] + 1
+            : Math.max(lcs[i - 1][j], lcs[i][j - 1]);
+      }
+    }
+    return source.length() + target.length() - 2 * lcs[source.length()][target.length()];
+  }
+
+  static String randomString(Random random, int length, int alphabet) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < length; i++) {
+      sb.append((char) ('a' + random.nextInt(alphabet)));
+    }
+    return sb.toString();
   }
 
   private DiffInfo compute(String source, String target){
@@ -0,0 +1,64 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.cost;
+import static org.bytediff.engine.DiffTest.editDistance;
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class DistanceTest {
+
+  @Test
+  public void same_as_edit_distance(){
+    Random random = new Random(41);
+
+    for (int i = 0; i < 300; i++) {
+      String source = randomString(random, random.nextInt(300), 4);
+      String target = randomString(random, random.nextInt(300), 4);
+
+      Assertions.assertEquals(editDistance(source, target),
+          Diff.distance(source.toCharArray(), target.toCharArray()));
+    }
+  }
+
+  @Test
+  public void same_as_cost_of_ranges(){
+    Random random = new Random(43);
+    String source = randomString(random, 5_000, 26);
+    StringBuilder target = new StringBuilder(source);
+    for (int i = 0; i < 50; i++) {
+      target.insert(random.nextInt(target.length()), randomString(random, 3, 26));
+      target.deleteCharAt(random.nextInt(target.length()));
+    }
+
+    byte[] sourceBytes = source.getBytes(StandardCharsets.ISO_8859_1);
+    byte[] targetBytes = target.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+    Assertions.assertEquals(cost(Diff.compute(sourceBytes, targetBytes)),
+        Diff.distance(sourceBytes, targetBytes));
+  }
+
+  @Test
+  public void threshold_exits(){
+    char[] source = "quickbrownfox".toCharArray();
+    char[] target = "quickfox".toCharArray();
+
+    Assertions.assertEquals(5, Diff.distance(source, target, 5));
+    Assertions.assertEquals(-1, Diff.distance(source, target, 4));
+    Assertions.assertEquals(-1, Diff.distance(new char[100], new char[0], 99));
+  }
+
+  @Test
+  public void similarity(){
+    Assertions.assertEquals(1.0, Diff.similarity(new char[0], new char[0]));
+    Assertions.assertEquals(1.0, Diff.similarity("fox".toCharArray(), "fox".toCharArray()));
+    Assertions.assertEquals(0.0, Diff.similarity("abc".toCharArray(), "xyz".toCharArray()));
+    Assertions.assertEquals(0.5, Diff.similarity("abcd".toCharArray(), "abxy".toCharArray()));
+    Assertions.assertEquals(0.5, Diff.similarity("abcd".toCharArray(), "abxy".toCharArray(), 0.5));
+    Assertions.assertEquals(0.0, Diff.similarity("abcd".toCharArray(), "abxy".toCharArray(), 0.6));
+  }
+}
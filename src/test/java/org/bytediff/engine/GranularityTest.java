@@ -0,0 +1,68 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.apply;
+import static org.bytediff.engine.DiffTest.describe;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class GranularityTest {
+
+  @Test
+  public void whole_lines_replaced(){
+    String source = "host=a\nport=80\nuser=root\n";
+    String target = "host=a\nport=8080\nuser=root\n";
+
+    DiffInfo diff = Diff.compute(source.toCharArray(), target.toCharArray(), Granularity.LINE);
+
+    Assertions.assertEquals("MATCH[0,6,0,6]DELETE[7,14,6,6]INSERT[14,14,7,16]MATCH[15,24,17,26]",
+        describe(diff));
+    Assertions.assertIterableEquals(List.of("port=80\n"), diff.getDeletions());
+    Assertions.assertIterableEquals(List.of("port=8080\n"), diff.getInserts());
+  }
+
+  @Test
+  public void last_line_without_feed(){
+    DiffInfo diff = Diff.compute("a\nb".toCharArray(), "a\nc".toCharArray(), Granularity.LINE);
+
+    Assertions.assertEquals("MATCH[0,1,0,1]REPLACE[2,2,2,2]", describe(diff));
+  }
+
+  @Test
+  public void whole_words_replaced(){
+    String source = "the quick  fox";
+    String target = "the slow  fox";
+
+    DiffInfo diff = Diff.compute(source.toCharArray(), target.toCharArray(), Granularity.WORD);
+
+    Assertions.assertIterableEquals(List.of("quick"), diff.getDeletions());
+    Assertions.assertIterableEquals(List.of("slow"), diff.getInserts());
+    Assertions.assertIterableEquals(List.of("the ", "  fox"), diff.getMatches());
+  }
+
+  @Test
+  public void many_lines_reconstructed(){
+    Random random = new Random(31);
+    StringBuilder source = new StringBuilder();
+    StringBuilder target = new StringBuilder();
+    for (int i = 0; i < 100_000; i++) {
+      String line = "key." + random.nextInt(500) + " = " + random.nextInt(10) + "\n";
+      source.append(line);
+      if (random.nextInt(1_000) == 0) {
+        target.append("changed\n");
+      } else if (random.nextInt(1_000) != 0) {
+        target.append(line);
+      }
+    }
+
+    for (DiffAlgorithm algorithm : List.of(DiffAlgorithm.myers(), DiffAlgorithm.histogram())) {
+      DiffInfo diff = Diff.compute(source.toString().toCharArray(),
+          target.toString().toCharArray(), Granularity.LINE, algorithm);
+
+      Assertions.assertEquals(target.toString(), apply(diff));
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.apply;
+import static org.bytediff.engine.DiffTest.cost;
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class ParallelDiffTest {
+
+  @Test
+  public void scattered_edits_same_cost_as_sequential(){
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int seed = 17; seed < 21; seed++) {
+        Random random = new Random(seed);
+        String source = randomString(random, 500_000, 26);
+        StringBuilder target = new StringBuilder(source);
+        for (int i = 0, at = 497_000; at > 0; i++, at -= 3_000) {
+          char c = source.charAt(at);
+          if (i % 3 == 0) {
+            target.insert(at, "<+>");
+          } else if (c != source.charAt(at - 1) && c != source.charAt(at + 1)) {
+            if (i % 3 == 1) {
+              target.deleteCharAt(at);
+            } else {
+              target.setCharAt(at, '@');
+            }
+          }
+        }
+
+        DiffInfo parallel = Diff.computeParallel(source.toCharArray(),
+            target.toString().toCharArray(), pool);
+        DiffInfo sequential = Diff.compute(source.toCharArray(),
+            target.toString().toCharArray());
+
+        Assertions.assertEquals(cost(sequential), cost(parallel));
+        Assertions.assertEquals(target.toString(), apply(parallel));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void dense_edits_reconstructed(){
+    Random random = new Random(19);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int i = 0; i < 5; i++) {
+        String source = randomString(random, 100_000, 4);
+        StringBuilder mutated = new StringBuilder(source);
+        for (int j = 0; j < 2_000; j++) {
+          int at = random.nextInt(mutated.length());
+          if (random.nextBoolean()) {
+            mutated.deleteCharAt(at);
+          } else {
+            mutated.insert(at, randomString(random, 3, 4));
+          }
+        }
+        String target = mutated.toString();
+
+        DiffInfo parallel = Diff.computeParallel(source.getBytes(),
+            target.getBytes(), pool);
+
+        Assertions.assertEquals(target, apply(parallel));
+        Assertions.assertEquals(cost(Diff.compute(source.getBytes(),
+            target.getBytes())), cost(parallel));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void options_bound_parallel_search(){
+    Random random = new Random(23);
+    String source = randomString(random, 200_000, 4);
+    String target = randomString(random, 200_000, 4);
+    List<DiffStats> stats = new ArrayList<>();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      DiffOptions options = DiffOptions.defaults().withMaxCost(16).withZeroCopy(true)
+          .withStatsListener(stats::add);
+      char[] targetChars = target.toCharArray();
+      DiffInfo bounded = Diff.computeParallel(source.toCharArray(), targetChars, options, pool);
+
+      Assertions.assertFalse(bounded.isOptimal());
+      Assertions.assertEquals(target, apply(bounded));
+      Assertions.assertEquals(1, stats.size());
+      Assertions.assertEquals(cost(bounded), stats.get(0).getCost());
+      targetChars[0] = '!';
+      Assertions.assertEquals('!', bounded.getTargetView(0).charAt(0));
+      Assertions.assertThrows(IllegalArgumentException.class, () -> Diff.computeParallel(
+          source.getBytes(), target.getBytes(), DiffOptions.defaults().withBlockSize(32), pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void increasing_chain(){
+    int[] values = {5, 1, 6, 2, 7, 3, 4, 0};
+
+    int[] chain = ParallelDiff.increasingChain(values, values.length);
+
+    Assertions.assertArrayEquals(new int[]{1, 3, 5, 6}, chain);
+  }
+}
@@ -0,0 +1,73 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PatchTest {
+
+  @Test
+  public void apply_and_reverse_random() throws IOException {
+    Random random = new Random(11);
+
+    for (int i = 0; i < 300; i++) {
+      byte[] source = randomString(random, random.nextInt(60), 4).getBytes(StandardCharsets.US_ASCII);
+      byte[] target = randomString(random, random.nextInt(60), 4).getBytes(StandardCharsets.US_ASCII);
+      DiffInfo info = Diff.compute(source, target);
+
+      Assertions.assertArrayEquals(target, Patch.apply(info, source.clone()));
+      Assertions.assertArrayEquals(source, Patch.reverse(info, target.clone()));
+
+      ByteArrayOutputStream written = new ByteArrayOutputStream();
+      Patch.apply(info, source, Channels.newChannel(written));
+      Assertions.assertArrayEquals(target, written.toByteArray());
+
+      for (boolean direct : new boolean[]{false, true}) {
+        int capacity = 3 + Math.max(source.length, target.length);
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        buffer.position(3);
+        buffer.put(source).flip().position(3);
+        Patch.applyInPlace(info, buffer);
+        Assertions.assertEquals(3, buffer.position());
+        Assertions.assertEquals(ByteBuffer.wrap(target), buffer);
+
+        Patch.reverseInPlace(info, buffer);
+        Assertions.assertEquals(ByteBuffer.wrap(source), buffer);
+      }
+    }
+  }
+
+  @Test
+  public void chars_round_trip(){
+    String source = "the quick brown fox jumps over the lazy dog";
+    String target = "a quick brown cat jumped over lazy dogs";
+    DiffInfo info = Diff.compute(source.toCharArray(), target.toCharArray(), Granularity.WORD);
+
+    Assertions.assertEquals(target, new String(Patch.apply(info, source.toCharArray())));
+    Assertions.assertEquals(source, new String(Patch.reverse(info, target.toCharArray())));
+  }
+
+  @Test
+  public void mismatched_input_rejected(){
+    byte[] source = {1, 2, 3, 4};
+    byte[] target = {1, 2, 5, 3, 4, 6};
+    DiffInfo info = Diff.compute(source, target);
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Patch.apply(info, Arrays.copyOf(source, 5)));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Patch.applyInPlace(info, ByteBuffer.wrap(source.clone())));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Patch.apply(info, ByteBuffer.wrap(source), ByteBuffer.allocate(5)));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Patch.apply(Diff.compute("ab".toCharArray(), "b".toCharArray()), new byte[2]));
+  }
+}
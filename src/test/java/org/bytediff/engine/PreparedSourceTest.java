@@ -0,0 +1,92 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.describe;
+import static org.bytediff.engine.DiffTest.randomString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PreparedSourceTest {
+
+  @Test
+  public void same_as_single_calls(){
+    Random random = new Random(29);
+    String baseline = randomString(random, 5000, 8);
+
+    for (DiffOptions options : new DiffOptions[]{DiffOptions.defaults(),
+        DiffOptions.defaults().withBlockSize(16),
+        DiffOptions.defaults().withAlgorithm(DiffAlgorithm.histogram()).withZeroCopy(true)}) {
+      PreparedSource prepared = PreparedSource.of(baseline.toCharArray(), options);
+      for (int i = 0; i < 50; i++) {
+        char[] target = mutate(random, baseline).toCharArray();
+        Assertions.assertEquals(describe(Diff.compute(baseline.toCharArray(), target, options)),
+            describe(prepared.compute(target)));
+      }
+    }
+  }
+
+  @Test
+  public void shared_by_threads() throws Exception {
+    Random random = new Random(31);
+    byte[] baseline = randomString(random, 20_000, 16).getBytes();
+    PreparedSource prepared = PreparedSource.of(baseline, DiffOptions.defaults().withBlockSize(32));
+    List<byte[]> targets = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      targets.add(mutate(random, new String(baseline)).getBytes());
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<DiffInfo>> results = new ArrayList<>();
+      for (byte[] target : targets) {
+        results.add(executor.submit(() -> prepared.compute(target)));
+      }
+      for (int i = 0; i < targets.size(); i++) {
+        DiffInfo info = results.get(i).get();
+        Assertions.assertSame(prepared.getSource(), info.getSourceSequence());
+        Assertions.assertArrayEquals(targets.get(i), Patch.apply(info, baseline));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void later_changes_of_options_ignored(){
+    DiffOptions options = DiffOptions.defaults();
+    PreparedSource prepared = PreparedSource.of("abcdef".toCharArray(), options);
+    DiffEngine engine = DiffEngine.defaults().withOptions(options);
+    options.withMaxCost(0);
+
+    Assertions.assertFalse(Diff.compute("abcdef".toCharArray(), "abXdeYf".toCharArray(), options).isOptimal());
+    Assertions.assertTrue(prepared.compute("abXdeYf".toCharArray()).isOptimal());
+    Assertions.assertTrue(engine.compute(DiffEngine.Pair.of("abcdef".toCharArray(),
+        "abXdeYf".toCharArray())).isOptimal());
+  }
+
+  @Test
+  public void kinds_must_match(){
+    PreparedSource prepared = PreparedSource.of("abc".toCharArray(), DiffOptions.defaults());
+
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> prepared.compute("abc".getBytes()));
+  }
+
+  private static String mutate(Random random, String baseline) {
+    StringBuilder result = new StringBuilder(baseline);
+    for (int edits = random.nextInt(5); edits > 0; edits--) {
+      int at = random.nextInt(result.length());
+      int length = Math.min(result.length() - at, random.nextInt(300));
+      String cut = result.substring(at, at + length);
+      result.delete(at, at + length);
+      result.insert(random.nextInt(result.length() + 1), random.nextBoolean() ? cut : randomString(random, 20, 8));
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,99 @@
+package org.bytediff.engine;
+
+import static org.bytediff.engine.DiffTest.describe;
+
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class SequenceTest {
+
+  @Test
+  public void longs_compared_as_values(){
+    long[] source = {1L << 40, 2L << 40, 3L << 40, 4L << 40};
+    long[] target = {1L << 40, 5L << 40, 3L << 40, 4L << 40, 6L << 40};
+
+    DiffInfo diff = Diff.compute(Sequence.of(source), Sequence.of(target));
+
+    Assertions.assertEquals("MATCH[0,0,0,0]REPLACE[1,1,1,1]MATCH[2,3,2,3]INSERT[3,3,4,4]",
+        describe(diff));
+  }
+
+  @Test
+  public void longs_rendered_as_numbers(){
+    long[] source = {7, 1 + (1L << 16), 9};
+    long[] target = {7, 1 + (2L << 16), 9};
+
+    DiffInfo diff = Diff.compute(Sequence.of(source), Sequence.of(target));
+
+    Assertions.assertFalse(diff.getTargetSequence().hasChars());
+    Assertions.assertIterableEquals(List.of("131073 "), diff.getReplacements());
+    Assertions.assertEquals("65537 ", diff.getSourceView(1).toString());
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> diff.getSourceSequence().charAt(1));
+  }
+
+  @Test
+  public void wrapped_array_not_copied(){
+    int[] source = {1, 2, 3};
+
+    Sequence of = Sequence.of(source);
+    Sequence wrapped = Sequence.wrap(source);
+    source[1] = 'x';
+
+    Assertions.assertEquals("2 ", of.view(1, 2).toString());
+    Assertions.assertEquals("120 ", wrapped.view(1, 2).toString());
+    Assertions.assertThrows(IndexOutOfBoundsException.class, () -> wrapped.view(2, 4));
+  }
+
+  @Test
+  public void ints_same_ranges_as_chars(){
+    int[] source = {'q', 'u', 'i', 'c', 'k', 'f', 'o', 'x'};
+    int[] target = {'q', 'u', 'i', 'c', 'k', 'b', 'r', 'o', 'w', 'n', 'f', 'o', 'x'};
+
+    Assertions.assertEquals(
+        describe(Diff.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray())),
+        describe(Diff.compute(Sequence.of(source), Sequence.of(target))));
+  }
+
+  @Test
+  public void surrogate_values_of_ints_left_alone(){
+    int[] source = {0xD800, 1, 2};
+    int[] target = {0xD800, 3, 2};
+
+    DiffInfo diff = Diff.compute(Sequence.of(source), Sequence.of(target));
+
+    Assertions.assertEquals("MATCH[0,0,0,0]REPLACE[1,1,1,1]MATCH[2,2,2,2]", describe(diff));
+  }
+
+  @Test
+  public void objects_with_custom_equivalence(){
+    Equivalence<String> ignoreCase = new Equivalence<String>() {
+      @Override
+      public int hash(String value) {
+        return value.toLowerCase().hashCode();
+      }
+
+      @Override
+      public boolean equivalent(String left, String right) {
+        return left.equalsIgnoreCase(right);
+      }
+    };
+
+    DiffInfo diff = Diff.compute(
+        Sequence.of(List.of("Alpha", "beta", "gamma"), ignoreCase),
+        Sequence.of(List.of("alpha", "BETA", "delta", "gamma"), ignoreCase),
+        DiffAlgorithm.histogram());
+
+    Assertions.assertEquals("MATCH[0,1,0,1]INSERT[1,1,2,2]MATCH[2,2,3,3]", describe(diff));
+    Assertions.assertIterableEquals(List.of("delta"), diff.getInserts());
+    Assertions.assertThrows(UnsupportedOperationException.class, diff::getSource);
+    Assertions.assertThrows(UnsupportedOperationException.class, diff::getTarget);
+  }
+
+  @Test
+  public void different_kinds_rejected(){
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> Diff.compute(Sequence.of(new int[]{1}), Sequence.of(new long[]{1})));
+  }
+}
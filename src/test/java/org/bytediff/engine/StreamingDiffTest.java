@@ -0,0 +1,144 @@
+package org.bytediff.engine;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.bytediff.engine.DiffInfo.DiffType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class StreamingDiffTest {
+
+  @Test
+  public void same_ranges_as_whole_comparison() throws IOException {
+    Random random = new Random(13);
+    byte[] source = new byte[10_000];
+    random.nextBytes(source);
+    byte[] target = source.clone();
+    for (int i = 500; i < 10_000; i += 1_000) {
+      target[i] ^= 1;
+    }
+
+    Recorder recorder = stream(source, target, 1024);
+
+    Assertions.assertEquals(DiffTest.describe(Diff.compute(source, target)),
+        recorder.ranges.toString());
+    Assertions.assertTrue(recorder.boundaries.isEmpty());
+  }
+
+  @Test
+  public void reconstructs_target() throws IOException {
+    Random random = new Random(17);
+
+    for (int i = 0; i < 50; i++) {
+      byte[] source = new byte[random.nextInt(3_000)];
+      byte[] target = new byte[random.nextInt(3_000)];
+      for (int j = 0; j < source.length; j++) {
+        source[j] = (byte) random.nextInt(4);
+      }
+      for (int j = 0; j < target.length; j++) {
+        target[j] = (byte) random.nextInt(4);
+      }
+
+      Recorder recorder = stream(source, target, 256);
+
+      Assertions.assertArrayEquals(target, recorder.apply(source, target));
+    }
+  }
+
+  @Test
+  public void unrelated_windows_report_boundary() throws IOException {
+    Random random = new Random(19);
+    byte[] source = new byte[4096];
+    byte[] target = new byte[4096];
+    random.nextBytes(source);
+    random.nextBytes(target);
+
+    Recorder recorder = stream(source, target, 512);
+
+    Assertions.assertFalse(recorder.boundaries.isEmpty());
+    Assertions.assertArrayEquals(target, recorder.apply(source, target));
+  }
+
+  @Test
+  public void unrelated_big_window_bounded() throws IOException {
+    Random random = new Random(23);
+    byte[] source = new byte[1 << 16];
+    byte[] target = new byte[1 << 16];
+    random.nextBytes(source);
+    random.nextBytes(target);
+
+    Recorder recorder = stream(source, target, 1 << 16);
+
+    Assertions.assertFalse(recorder.boundaries.isEmpty());
+    Assertions.assertArrayEquals(target, recorder.apply(source, target));
+  }
+
+  @Test
+  public void invalid_settings_rejected() throws IOException {
+    StreamingDiff diff = StreamingDiff.from(new ByteArrayInputStream(new byte[0]),
+        new ByteArrayInputStream(new byte[0]));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> diff.withWindowSize(0));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> diff.withWindowSize(-1));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> diff.withAnchorLength(0));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> diff.withOptions(DiffOptions.defaults().withBlockSize(32)));
+    Assertions.assertThrows(IllegalArgumentException.class,
+        () -> diff.withOptions(DiffOptions.defaults().withStatsListener(stats -> { })));
+
+    try (Pipe.SourceChannel channel = Pipe.open().source()) {
+      channel.configureBlocking(false);
+      Assertions.assertThrows(IllegalArgumentException.class,
+          () -> StreamingDiff.from(channel, channel));
+    }
+  }
+
+  private Recorder stream(byte[] source, byte[] target, int window)
+      throws IOException {
+    Recorder recorder = new Recorder();
+    StreamingDiff
+        .from(new ByteArrayInputStream(source), new ByteArrayInputStream(target))
+        .withWindowSize(window)
+        .withAnchorLength(8)
+        .compute(recorder);
+    return recorder;
+  }
+
+  private static class Recorder implements StreamingDiff.Listener {
+
+    final StringBuilder ranges = new StringBuilder();
+    final List<long[]> parsed = new ArrayList<>();
+    final List<Long> boundaries = new ArrayList<>();
+
+    @Override
+    public void onRange(DiffType type, long sourceStart, long sourceEnd,
+        long targetStart, long targetEnd) {
+      ranges.append(type).append('[')
+          .append(sourceStart).append(',').append(sourceEnd).append(',')
+          .append(targetStart).append(',').append(targetEnd).append(']');
+      parsed.add(new long[]{type.ordinal(), sourceStart, sourceEnd, targetStart, targetEnd});
+    }
+
+    @Override
+    public void onBoundary(long sourceOffset, long targetOffset) {
+      boundaries.add(sourceOffset);
+    }
+
+    byte[] apply(byte[] source, byte[] target) {
+      java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+      for (long[] r : parsed) {
+        DiffType type = DiffType.values()[(int) r[0]];
+        if (type == DiffType.MATCH) {
+          out.write(source, (int) r[1], (int) (r[2] - r[1] + 1));
+        } else if (type != DiffType.DELETE) {
+          out.write(target, (int) r[3], (int) (r[4] - r[3] + 1));
+        }
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package org.bytediff.print;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import org.bytediff.engine.Diff;
+import org.bytediff.engine.DiffInfo;
+import org.bytediff.engine.DiffOptions;
+import org.bytediff.engine.Equivalence;
+import org.bytediff.engine.Sequence;
+import org.bytediff.print.enc.Encoder;
+import org.bytediff.print.enc.IdEncoder;
+import org.bytediff.print.enc.RawValueEncoder;
+import org.bytediff.print.fmt.AnsiColorFormatter;
+import org.bytediff.print.fmt.Formatter;
+import org.bytediff.print.fmt.SymbolFormatter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PrinterTest {
+
+  @Test
+  public void compact_symbols(){
+    DiffInfo info = Diff.compute("quickfox".toCharArray(), "quickbrownfox".toCharArray());
+
+    Assertions.assertEquals("quick++[brown]fox", Printer.from(info).print());
+    Assertions.assertEquals("Identical.",
+        Printer.from(Diff.compute("fox".toCharArray(), "fox".toCharArray())).print());
+  }
+
+  @Test
+  public void streamed_same_as_string() throws IOException {
+    DiffInfo info = Diff.compute("abdJohnDoe😉 jumps over".toCharArray(),
+        "abcaaJohnDoe😊 jumped over".toCharArray());
+    Formatter custom = (value, type) -> "<" + type + ":" + value + ">";
+    Encoder upper = String::toUpperCase;
+
+    for (Formatter fmt : new Formatter[]{new SymbolFormatter(), new AnsiColorFormatter(), custom}) {
+      for (Encoder enc : new Encoder[]{new IdEncoder(), new RawValueEncoder(16), upper}) {
+        for (boolean verbose : new boolean[]{false, true}) {
+          Printer printer = Printer.from(info).withFormatter(fmt).withEncoding(enc);
+          if (verbose) {
+            printer.verbose();
+          }
+          String expected = printer.print();
+
+          StringWriter writer = new StringWriter();
+          printer.print(writer);
+          Assertions.assertEquals(expected, writer.toString());
+
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          printer.print(Channels.newChannel(bytes));
+          Assertions.assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8),
+              bytes.toByteArray());
+        }
+      }
+    }
+  }
+
+  @Test
+  public void raw_values_of_surrogate_pair(){
+    DiffInfo info = Diff.compute("a😉".toCharArray(), "a😊".toCharArray());
+
+    Assertions.assertEquals("\\97 ~~[\\128522 ]",
+        Printer.from(info).withEncoding(new RawValueEncoder(10)).print());
+  }
+
+  @Test
+  public void raw_values_same_as_code_points(){
+    String value = "a\u0000\u00ff\u0100😉\ud800";
+    for (int radix : new int[]{2, 8, 10, 16, 36, 99}) {
+      StringBuilder expected = new StringBuilder();
+      value.codePoints().forEach(i -> expected.append('\\')
+          .append(Integer.toString(i, radix)).append(' '));
+
+      Assertions.assertEquals(expected.toString(), new RawValueEncoder(radix).encode(value));
+    }
+  }
+
+  @Test
+  public void hex_dump_rows(){
+    byte[] source = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+    byte[] target = "0123456789abcdefghijKLmnopqrstuvwxyz\n".getBytes(StandardCharsets.US_ASCII);
+
+    String dump = Printer.from(Diff.compute(source, target)).hexDump().print();
+
+    Assertions.assertEquals(""
+        + "-00000010              6b 6c                                 |    kl          |\n"
+        + "+00000010              4b 4c                                 |    KL          |\n"
+        + "+00000020              0a                                    |    .           |\n",
+        dump);
+  }
+
+  @Test
+  public void moved_and_copied_blocks(){
+    DiffOptions options = DiffOptions.defaults().withBlockSize(4);
+    DiffInfo info = Diff.compute("headXXXXbodytail".toCharArray(), "headbodyXXXXtailhead".toCharArray(), options);
+
+    Assertions.assertEquals("headbody>>[XXXX]tail==[head]", Printer.from(info).print());
+    Assertions.assertEquals(""
+        + "*> ...dbody>>[XXXX]tailh...\n"
+        + "*> ...Xtail==[head]\n", Printer.from(info).verbose().withLeftContext(5).withRightContext(5).print());
+
+    DiffInfo bytes = Diff.compute("headXXXXbodytail".getBytes(StandardCharsets.US_ASCII),
+        "headbodyXXXXtail".getBytes(StandardCharsets.US_ASCII), options);
+    Assertions.assertEquals(">00000008  moved from 00000004, 00000004 bytes\n",
+        Printer.from(bytes).hexDump().print());
+  }
+
+  @Test
+  public void hex_dump_of_objects_rejected(){
+    DiffInfo info = Diff.compute(Sequence.of(new Integer[]{1, 2}, Equivalence.natural()),
+        Sequence.of(new Integer[]{1, 3}, Equivalence.natural()));
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> Printer.from(info).hexDump());
+  }
+}